@@ -0,0 +1,85 @@
+package com.learnreactivespring.codec;
+
+import com.learnreactivespring.document.Item;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of ItemJsonEncoder against the default Jackson encoder, into pooled Netty buffers
+ * as on the server. Run with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemJsonEncoderBenchmark {
+
+    private static final ResolvableType ITEM = ResolvableType.forClass(Item.class);
+
+    @Param({"item", "jackson"})
+    public String encoder;
+
+    @Param({"100"})
+    public int items;
+
+    private Encoder<Object> selected;
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private Item single;
+    private List<Item> list;
+
+    @Setup
+    public void setUp() {
+        selected = "item".equals(encoder) ? new ItemJsonEncoder() : new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+        list = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            list.add(new Item("60a1f2c3d4e5f6a7b8c9d0" + i, "Samsung TV model " + i, 399.99 + i));
+        }
+        single = list.get(0);
+    }
+
+    @Benchmark
+    public int single() {
+        return release(selected.encode(Mono.just(single), bufferFactory, ITEM, MediaType.APPLICATION_JSON, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public int array() {
+        return release(selected.encode(Flux.fromIterable(list), bufferFactory, ITEM, MediaType.APPLICATION_JSON, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public int ndjson() {
+        return release(selected.encode(Flux.fromIterable(list), bufferFactory, ITEM, MediaType.APPLICATION_NDJSON, Collections.emptyMap()));
+    }
+
+    private static int release(Flux<DataBuffer> buffers) {
+        int[] bytes = new int[1];
+        buffers.doOnNext(buffer -> {
+            bytes[0] += buffer.readableByteCount();
+            DataBufferUtils.release(buffer);
+        }).blockLast();
+        return bytes[0];
+    }
+}
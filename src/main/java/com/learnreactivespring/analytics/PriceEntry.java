@@ -0,0 +1,14 @@
+package com.learnreactivespring.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceEntry {
+
+    private String id;
+    private double price;
+}
@@ -0,0 +1,213 @@
+package com.learnreactivespring.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of item prices for range counts and top-K queries. Writes are collected as a
+ * delta and merged into the previous snapshot by {@link #rebuild()}. A snapshot is a pair of
+ * immutable parallel arrays sorted by price: a primitive double[] and the ids at the same offsets.
+ * Queries are binary searches over primitives that never box, lock or touch Mongo. Items without
+ * a price are not indexed.
+ */
+public class PriceIndex {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    // marks a removal in the delta, the map can't hold nulls
+    private static final Double REMOVED = Double.NaN;
+
+    private final ConcurrentHashMap<String, Double> pending = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new double[0], new String[0]);
+
+    public void put(String id, Double price) {
+        if (id == null) {
+            return;
+        }
+        pending.put(id, price == null || price.isNaN() ? REMOVED : price);
+    }
+
+    public void remove(String id) {
+        if (id != null) {
+            pending.put(id, REMOVED);
+        }
+    }
+
+    /**
+     * Makes the writes so far visible to queries. Only the changed ids are sorted; the previous
+     * snapshot is already in order and is merged with them in one pass.
+     *
+     * @return false when nothing changed since the last rebuild
+     */
+    public synchronized boolean rebuild() {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        // a write racing with the drain replaces the value, so it stays pending for the next rebuild
+        Map<String, Double> delta = new HashMap<>();
+        for (Map.Entry<String, Double> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                delta.put(entry.getKey(), entry.getValue());
+            }
+        }
+        double[] addedPrices = new double[delta.size()];
+        String[] addedIds = new String[addedPrices.length];
+        int added = 0;
+        for (Map.Entry<String, Double> entry : delta.entrySet()) {
+            if (!entry.getValue().isNaN()) {
+                addedPrices[added] = entry.getValue();
+                addedIds[added++] = entry.getKey();
+            }
+        }
+        sort(addedPrices, addedIds, 0, added);
+
+        Snapshot previous = snapshot;
+        double[] sortedPrices = new double[previous.prices.length + added];
+        String[] ids = new String[sortedPrices.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < previous.prices.length || j < added) {
+            if (i < previous.prices.length && delta.containsKey(previous.ids[i])) {
+                i++;
+            } else if (j == added || (i < previous.prices.length && previous.prices[i] <= addedPrices[j])) {
+                sortedPrices[size] = previous.prices[i];
+                ids[size++] = previous.ids[i++];
+            } else {
+                sortedPrices[size] = addedPrices[j];
+                ids[size++] = addedIds[j++];
+            }
+        }
+        if (size < sortedPrices.length) {
+            sortedPrices = Arrays.copyOf(sortedPrices, size);
+            ids = Arrays.copyOf(ids, size);
+        }
+        snapshot = new Snapshot(sortedPrices, ids);
+        return true;
+    }
+
+    public int size() {
+        return snapshot.prices.length;
+    }
+
+    /**
+     * @return the number of items priced between min and max, both inclusive
+     */
+    public int count(double min, double max) {
+        if (!(min <= max)) {
+            return 0;
+        }
+        Snapshot current = snapshot;
+        return firstAbove(current.prices, max) - firstAtLeast(current.prices, min);
+    }
+
+    public List<PriceEntry> cheapest(int limit) {
+        Snapshot current = snapshot;
+        int size = Math.min(Math.max(limit, 0), current.prices.length);
+        List<PriceEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new PriceEntry(current.ids[i], current.prices[i]));
+        }
+        return entries;
+    }
+
+    public List<PriceEntry> mostExpensive(int limit) {
+        Snapshot current = snapshot;
+        int last = current.prices.length - 1;
+        int size = Math.min(Math.max(limit, 0), current.prices.length);
+        List<PriceEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new PriceEntry(current.ids[last - i], current.prices[last - i]));
+        }
+        return entries;
+    }
+
+    private static int firstAtLeast(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int firstAbove(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // quicksort over the parallel arrays, Arrays.sort can't carry the ids along without boxing
+    static void sort(double[] prices, String[] ids, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            double pivot = median(prices[from], prices[mid], prices[to - 1]);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (prices[i] < pivot) {
+                    i++;
+                }
+                while (prices[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(prices, ids, i++, j--);
+                }
+            }
+            // recurse into the smaller half so the stack stays logarithmic
+            if (j + 1 - from < to - i) {
+                sort(prices, ids, from, j + 1);
+                from = i;
+            } else {
+                sort(prices, ids, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && prices[j - 1] > prices[j]; j--) {
+                swap(prices, ids, j - 1, j);
+            }
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(double[] prices, String[] ids, int i, int j) {
+        double price = prices[i];
+        prices[i] = prices[j];
+        prices[j] = price;
+        String id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    private static final class Snapshot {
+
+        private final double[] prices;
+        private final String[] ids;
+
+        private Snapshot(double[] prices, String[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+    }
+}
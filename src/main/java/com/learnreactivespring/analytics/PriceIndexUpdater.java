@@ -0,0 +1,158 @@
+package com.learnreactivespring.analytics;
+
+import com.learnreactivespring.config.PriceIndexProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.service.ItemChangeListener;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the {@link PriceIndex} in step with the Item collection: a full load once the application
+ * is up, this instance's writes as they complete and, when enabled, other instances' writes from a
+ * change stream. The sorted snapshot is rebuilt every refresh interval if anything changed. The
+ * load's copy of an item written or deleted while it runs is older, so it is skipped.
+ */
+@Component
+@ConditionalOnProperty("item.price-index.enabled")
+@Slf4j
+public class PriceIndexUpdater implements ItemChangeListener {
+
+    private final PriceIndex priceIndex;
+    private final PriceIndexProperties properties;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    // ids changed since the full load started, only touched under this lock; null outside the load
+    private volatile Set<String> changedDuringLoad;
+
+    public PriceIndexUpdater(PriceIndex priceIndex, PriceIndexProperties properties,
+                             ReactiveMongoOperations reactiveMongoOperations, MeterRegistry meterRegistry) {
+        this.priceIndex = priceIndex;
+        this.properties = properties;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        Gauge.builder("item.price-index.size", priceIndex, PriceIndex::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(Flux.interval(properties.getRefreshInterval())
+                .subscribe(tick -> priceIndex.rebuild()));
+
+        Query idAndPrice = new Query();
+        idAndPrice.fields().include("price");
+        synchronized (this) {
+            changedDuringLoad = new HashSet<>();
+        }
+        subscriptions.add(reactiveMongoOperations.find(idAndPrice, Item.class)
+                .doOnNext(this::loaded)
+                .doFinally(signal -> loadFinished())
+                .count()
+                .subscribe(count -> log.info("Price index loaded {} items", count),
+                        e -> log.warn("Loading the price index failed", e)));
+
+        if (properties.isChangeStream()) {
+            subscriptions.add(reactiveMongoOperations.changeStream(Item.class)
+                    .withOptions(options -> options.fullDocumentLookup(FullDocument.UPDATE_LOOKUP))
+                    .watchCollection(Item.class)
+                    .listen()
+                    .doOnNext(this::apply)
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                            .maxBackoff(Duration.ofMinutes(1))
+                            .doBeforeRetry(signal -> log.warn("Price index change stream failed, reconnecting", signal.failure())))
+                    .subscribe());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    @Override
+    public void onSaved(Item item) {
+        if (changedDuringLoad == null) {
+            priceIndex.put(item.getId(), item.getPrice());
+            return;
+        }
+        synchronized (this) {
+            changed(item.getId());
+            priceIndex.put(item.getId(), item.getPrice());
+        }
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        if (changedDuringLoad == null) {
+            priceIndex.remove(id);
+            return;
+        }
+        synchronized (this) {
+            changed(id);
+            priceIndex.remove(id);
+        }
+    }
+
+    private synchronized void loaded(Item item) {
+        if (changedDuringLoad == null || !changedDuringLoad.contains(item.getId())) {
+            priceIndex.put(item.getId(), item.getPrice());
+        }
+    }
+
+    private synchronized void loadFinished() {
+        changedDuringLoad = null;
+    }
+
+    private void changed(String id) {
+        Set<String> changed = changedDuringLoad;
+        if (changed != null && id != null) {
+            changed.add(id);
+        }
+    }
+
+    private void apply(ChangeStreamEvent<Item> event) {
+        if (event.getOperationType() == null) {
+            return;
+        }
+        switch (event.getOperationType()) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                // the looked-up document is missing when it was deleted in the meantime, the delete follows
+                if (event.getBody() != null) {
+                    onSaved(event.getBody());
+                }
+                break;
+            case DELETE:
+                onDeleted(id(event.getRaw().getDocumentKey()));
+                break;
+            default:
+        }
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey == null ? null : documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString() ? id.asString().getValue() : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.learnreactivespring.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRangeCount {
+
+    private double min;
+    private double max;
+    private int count;
+}
@@ -0,0 +1,115 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.service.ItemChangeListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encoded response bodies of single items, one per media type, as read-only buffers that are
+ * written to the response as they are. Every write evicts the item. A body is only stored if that
+ * item was not evicted since the read that produced it started, so a slow read can never put back
+ * a body that a write has already replaced, while writes to other items don't hold it back.
+ * <p>
+ * Evictions are remembered per id with the clock value they happened at. Once max-entries of them
+ * have piled up they are dropped together, and reads started before that are refused for every id.
+ */
+@Component
+public class EncodedItemCache implements ItemChangeListener {
+
+    private final CacheProperties.Encoded properties;
+    private final ConcurrentHashMap<String, Map<MediaType, ByteBuffer>> items = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private volatile Evictions evictions = new Evictions(0);
+
+    public EncodedItemCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getEncoded();
+        Gauge.builder("item.cache.encoded.size", items, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * To be taken before reading the item, and handed to {@link #put}.
+     */
+    public long version() {
+        return clock.get();
+    }
+
+    public ByteBuffer get(String id, MediaType mediaType) {
+        Map<MediaType, ByteBuffer> bodies = items.get(id);
+        ByteBuffer body = bodies == null ? null : bodies.get(mediaType);
+        return body == null ? null : body.duplicate();
+    }
+
+    public void put(String id, MediaType mediaType, byte[] body, long readVersion) {
+        if (items.size() >= properties.getMaxEntries() && !items.containsKey(id)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body).asReadOnlyBuffer();
+        // evict records itself before removing, so either this sees the eviction or the removal follows
+        items.compute(id, (key, bodies) -> {
+            if (evictions.evictedSince(id, readVersion)) {
+                return bodies;
+            }
+            Map<MediaType, ByteBuffer> updated = bodies == null ? new HashMap<>(4) : new HashMap<>(bodies);
+            updated.put(mediaType, buffer);
+            return updated;
+        });
+    }
+
+    public void evict(String id) {
+        long now = clock.incrementAndGet();
+        Evictions current = evictions;
+        current.evicted.put(id, now);
+        if (current.evicted.size() > properties.getMaxEntries()) {
+            evictions = new Evictions(clock.incrementAndGet());
+        }
+        items.remove(id);
+    }
+
+    public void clear() {
+        evictions = new Evictions(clock.incrementAndGet());
+        items.clear();
+    }
+
+    @Override
+    public void onSaved(Item item) {
+        evict(item.getId());
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        evict(id);
+    }
+
+    private static final class Evictions {
+
+        // reads started before this are refused for every id
+        private final long floor;
+        private final ConcurrentHashMap<String, Long> evicted = new ConcurrentHashMap<>();
+
+        private Evictions(long floor) {
+            this.floor = floor;
+        }
+
+        private boolean evictedSince(String id, long readVersion) {
+            if (readVersion < floor) {
+                return true;
+            }
+            Long evictedAt = evicted.get(id);
+            return evictedAt != null && evictedAt > readVersion;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded on-heap {@link ItemCache}. Once full, new ids are not admitted until entries are evicted,
+ * which keeps puts on the read path to a single map operation.
+ */
+public class HeapItemCache implements ItemCache {
+
+    private final ConcurrentHashMap<String, Entry> items = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public HeapItemCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Item get(String id) {
+        Entry entry = items.get(id);
+        return entry == null ? null : entry.item;
+    }
+
+    @Override
+    public void put(Item item) {
+        if (item.getId() == null) {
+            return;
+        }
+        if (items.size() < maxEntries || items.containsKey(item.getId())) {
+            items.put(item.getId(), new Entry(item, System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    public void evict(String id) {
+        items.remove(id);
+    }
+
+    @Override
+    public void evictWrittenBefore(long epochMillis) {
+        items.values().removeIf(entry -> entry.written < epochMillis);
+    }
+
+    @Override
+    public Flux<Item> all() {
+        return Flux.fromIterable(items.values()).map(entry -> entry.item);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    private static final class Entry {
+
+        private final Item item;
+        private final long written;
+
+        private Entry(Item item, long written) {
+            this.item = item;
+            this.written = written;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+import reactor.core.publisher.Flux;
+
+/**
+ * Local copy of recently read or written items, used to keep reads answering while Mongo is unavailable.
+ */
+public interface ItemCache {
+
+    ItemCache NONE = new ItemCache() {
+        @Override
+        public Item get(String id) {
+            return null;
+        }
+
+        @Override
+        public void put(Item item) {
+        }
+
+        @Override
+        public void evict(String id) {
+        }
+
+        @Override
+        public void evictWrittenBefore(long epochMillis) {
+        }
+
+        @Override
+        public Flux<Item> all() {
+            return Flux.empty();
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    };
+
+    Item get(String id);
+
+    void put(Item item);
+
+    void evict(String id);
+
+    /**
+     * Expires entries put before the given time, for when invalidations from other nodes may have been missed.
+     */
+    void evictWrittenBefore(long epochMillis);
+
+    Flux<Item> all();
+
+    int size();
+}
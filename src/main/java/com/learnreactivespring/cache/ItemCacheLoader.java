@@ -0,0 +1,117 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.service.ItemChangeListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Loads the whole catalog into the {@link ItemCache} once the application is up, when
+ * item.cache.load-on-startup is set. Writes made in the meantime go to the cache as usual; the
+ * load's copy of an item written, deleted or invalidated while it runs is older, so it is skipped.
+ * Other reads that fill the cache in bulk go through {@link #load(Flux)} for the same reason.
+ */
+@Component
+@Slf4j
+public class ItemCacheLoader implements ItemChangeListener {
+
+    private final ItemCache itemCache;
+    private final CacheProperties properties;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    // ids changed since the first running load started, only touched under this lock; null while none runs
+    private volatile Set<String> changedDuringLoad;
+    private int runningLoads;
+
+    public ItemCacheLoader(ItemCache itemCache, CacheProperties properties, ReactiveMongoOperations reactiveMongoOperations) {
+        this.itemCache = itemCache;
+        this.properties = properties;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isEnabled() || !properties.isLoadOnStartup()) {
+            return;
+        }
+        long start = System.nanoTime();
+        load(reactiveMongoOperations.findAll(Item.class))
+                .count()
+                .subscribe(count -> log.info("Loaded {} items into the cache in {} ms, {} cached",
+                        count, (System.nanoTime() - start) / 1_000_000, itemCache.size()),
+                        e -> log.warn("Loading the item cache failed", e));
+    }
+
+    /**
+     * Puts the items read into the cache as they arrive, except those changed since the subscription.
+     */
+    public Flux<Item> load(Flux<Item> items) {
+        return Flux.defer(() -> {
+            loadStarted();
+            return items.doOnNext(this::loaded)
+                    .doFinally(signal -> loadFinished());
+        });
+    }
+
+    @Override
+    public void onSaved(Item item) {
+        if (changedDuringLoad == null) {
+            return;
+        }
+        synchronized (this) {
+            changed(item.getId());
+            // a loaded copy may have landed between the service's put and this call
+            itemCache.put(item);
+        }
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        onInvalidated(id);
+    }
+
+    /**
+     * For ids evicted on behalf of another instance.
+     */
+    public void onInvalidated(String id) {
+        if (changedDuringLoad == null) {
+            return;
+        }
+        synchronized (this) {
+            changed(id);
+            itemCache.evict(id);
+        }
+    }
+
+    private synchronized void loaded(Item item) {
+        if (changedDuringLoad == null || !changedDuringLoad.contains(item.getId())) {
+            itemCache.put(item);
+        }
+    }
+
+    private synchronized void loadStarted() {
+        if (runningLoads++ == 0) {
+            changedDuringLoad = new HashSet<>();
+        }
+    }
+
+    private synchronized void loadFinished() {
+        if (--runningLoads == 0) {
+            changedDuringLoad = null;
+        }
+    }
+
+    private void changed(String id) {
+        Set<String> changed = changedDuringLoad;
+        if (changed != null && id != null) {
+            changed.add(id);
+        }
+    }
+}
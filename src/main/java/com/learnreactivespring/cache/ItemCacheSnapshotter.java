@@ -0,0 +1,155 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.scheduler.BlockingOffload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Warm restarts for the {@link ItemCache}: the cached items are written to a snapshot file every
+ * interval and on shutdown, and the snapshot is loaded before the web server starts so reads are
+ * answered from the cache straight away, unless it is older than max-age. The loaded items are then
+ * re-read from Mongo in batches, one query at a time, so stale entries are corrected without a burst of reads.
+ * The re-read goes through the {@link ItemCacheLoader}, so it never puts back an item changed while it runs.
+ */
+@Component
+@Slf4j
+public class ItemCacheSnapshotter implements SmartLifecycle {
+
+    private final ItemCache itemCache;
+    private final ItemCacheLoader itemCacheLoader;
+    private final CacheProperties properties;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final BlockingOffload blockingOffload;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private volatile boolean running;
+
+    public ItemCacheSnapshotter(ItemCache itemCache, ItemCacheLoader itemCacheLoader, CacheProperties properties,
+                                ReactiveMongoOperations reactiveMongoOperations, BlockingOffload blockingOffload) {
+        this.itemCache = itemCache;
+        this.itemCacheLoader = itemCacheLoader;
+        this.properties = properties;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.blockingOffload = blockingOffload;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled()) {
+            return;
+        }
+        List<String> loaded = load();
+        if (!loaded.isEmpty()) {
+            subscriptions.add(refresh(loaded).subscribe(
+                    count -> log.info("Refreshed {} snapshot items from Mongo", count),
+                    e -> log.warn("Refreshing snapshot items from Mongo failed", e)));
+        }
+        subscriptions.add(Flux.interval(properties.getSnapshot().getInterval())
+                .concatMap(tick -> blockingOffload.call("cache-snapshot", this::write)
+                        .onErrorResume(e -> {
+                            log.warn("Writing the item cache snapshot failed", e);
+                            return Mono.empty();
+                        }))
+                .subscribe());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        subscriptions.dispose();
+        if (!enabled()) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException e) {
+            log.warn("Writing the item cache snapshot on shutdown failed", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // starts before the web server and stops after it, so the final snapshot sees the last writes
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2;
+    }
+
+    private boolean enabled() {
+        return properties.isEnabled() && properties.getSnapshot().isEnabled();
+    }
+
+    private List<String> load() {
+        Path path = path();
+        List<String> ids = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return ids;
+        }
+        long start = System.nanoTime();
+        try {
+            long age = System.currentTimeMillis() - ItemSnapshotFile.createdMillis(path);
+            if (age > properties.getSnapshot().getMaxAge().toMillis()) {
+                log.info("Ignoring the cache snapshot {}, written {} s ago", path, age / 1000);
+                return ids;
+            }
+            ItemSnapshotFile.read(path, item -> {
+                if (item.getId() != null) {
+                    itemCache.put(item);
+                    ids.add(item.getId());
+                }
+            });
+            log.info("Loaded {} items from the cache snapshot {} in {} ms", ids.size(), path, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring the cache snapshot {}", path, e);
+        }
+        return ids;
+    }
+
+    private Mono<Integer> refresh(List<String> ids) {
+        return Flux.fromIterable(ids)
+                .buffer(properties.getSnapshot().getRefreshBatchSize())
+                .concatMap(batch -> itemCacheLoader
+                        .load(reactiveMongoOperations.find(Query.query(Criteria.where("id").in(batch)), Item.class))
+                        .map(Item::getId)
+                        .collect(HashSet<String>::new, Set::add)
+                        .map(found -> {
+                            // deleted while we were down
+                            batch.stream().filter(id -> !found.contains(id)).forEach(itemCache::evict);
+                            return found.size();
+                        }))
+                .reduce(0, Integer::sum);
+    }
+
+    private int write() throws IOException {
+        long start = System.nanoTime();
+        int count = ItemSnapshotFile.write(path(), itemCache.all().toIterable());
+        log.debug("Wrote {} items to the cache snapshot in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    private Path path() {
+        return Paths.get(properties.getSnapshot().getPath());
+    }
+}
@@ -0,0 +1,230 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.document.ItemInvalidation;
+import com.learnreactivespring.repository.ItemInvalidationRepository;
+import com.learnreactivespring.service.ItemChangeListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link ItemCache} and {@link EncodedItemCache} of every instance coherent: each write
+ * this instance completes is published to a capped collection that all instances tail, and ids
+ * written elsewhere are evicted as they arrive. The tail follows the collection's insertion order,
+ * never the publishers' clocks; a reopened tail skips up to the last document it applied. Heartbeats
+ * keep the tail moving, so a tail that has seen nothing for max-lag is known to be behind; until it
+ * catches up, or when documents were missed, entries older than the ttl are expired instead and
+ * encoded bodies are dropped.
+ */
+@Component
+@ConditionalOnProperty("item.cache.invalidation.enabled")
+@Slf4j
+public class ItemInvalidationBus implements ItemChangeListener {
+
+    private final String origin = UUID.randomUUID().toString();
+    private final ItemCache itemCache;
+    private final EncodedItemCache encodedItemCache;
+    private final ItemCacheLoader itemCacheLoader;
+    private final CacheProperties.Invalidation properties;
+    private final ItemInvalidationRepository itemInvalidationRepository;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private final Counter published;
+    private final Counter received;
+    private final Timer lag;
+    private volatile long lastReceived = System.currentTimeMillis();
+    // the last document applied, where a reopened tail resumes
+    private volatile String lastAppliedId;
+
+    public ItemInvalidationBus(ItemCache itemCache, EncodedItemCache encodedItemCache, ItemCacheLoader itemCacheLoader,
+                               CacheProperties properties, ItemInvalidationRepository itemInvalidationRepository,
+                               ReactiveMongoOperations reactiveMongoOperations, MeterRegistry meterRegistry) {
+        this.itemCache = itemCache;
+        this.itemCacheLoader = itemCacheLoader;
+        this.encodedItemCache = encodedItemCache;
+        this.properties = properties.getInvalidation();
+        this.itemInvalidationRepository = itemInvalidationRepository;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.published = meterRegistry.counter("item.cache.invalidation.published");
+        this.received = meterRegistry.counter("item.cache.invalidation.received");
+        this.lag = meterRegistry.timer("item.cache.invalidation.lag");
+        Gauge.builder("item.cache.invalidation.lagging", this, bus -> bus.lagging() ? 1 : 0).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(provision()
+                .thenMany(Flux.defer(this::tail))
+                // the cursor ends when the collection wraps past it, pick up again after the last document applied
+                .repeatWhen(completed -> completed.delayElements(Duration.ofMillis(100)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+                        .maxBackoff(Duration.ofSeconds(10))
+                        .doBeforeRetry(signal -> log.warn("Item invalidation tail failed, reconnecting", signal.failure())))
+                .subscribe());
+
+        subscriptions.add(Flux.interval(properties.getHeartbeatInterval())
+                .concatMap(tick -> publish(null).onErrorResume(e -> Mono.empty()).thenReturn(tick))
+                .filter(tick -> lagging())
+                // scans the whole cache, keep it off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(tick -> expireStale()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    @Override
+    public void onSaved(Item item) {
+        publishAsync(item.getId());
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        publishAsync(id);
+    }
+
+    boolean lagging() {
+        return System.currentTimeMillis() - lastReceived > properties.getMaxLag().toMillis();
+    }
+
+    // a tailable query without a filter starts at the oldest document and follows insertion order
+    private Flux<ItemInvalidation> tail() {
+        String resumeAfter = lastAppliedId;
+        long openedAt = System.currentTimeMillis();
+        Mono<Boolean> resumable = resumeAfter == null ? Mono.just(false) :
+                reactiveMongoOperations.exists(Query.query(Criteria.where("id").is(resumeAfter)), ItemInvalidation.class);
+        return resumable.flatMapMany(found -> {
+            if (resumeAfter != null && !found) {
+                missed();
+            }
+            Resume resume = new Resume(found ? resumeAfter : null, origin, openedAt);
+            return reactiveMongoOperations.tail(new Query(), ItemInvalidation.class)
+                    .filter(resume::isNew)
+                    .doOnNext(invalidation -> {
+                        if (resume.takeMissed()) {
+                            missed();
+                        }
+                    });
+        }).doOnNext(this::apply);
+    }
+
+    private void missed() {
+        log.warn("Item invalidations were overwritten before this instance read them, expiring stale entries");
+        Schedulers.boundedElastic().schedule(this::expireStale);
+    }
+
+    private void expireStale() {
+        itemCache.evictWrittenBefore(System.currentTimeMillis() - properties.getTtl().toMillis());
+        // encoded bodies carry no write time
+        encodedItemCache.clear();
+    }
+
+    void apply(ItemInvalidation invalidation) {
+        long now = System.currentTimeMillis();
+        lastReceived = now;
+        lastAppliedId = invalidation.getId();
+        lag.record(Math.max(0, now - invalidation.getTimestamp()), TimeUnit.MILLISECONDS);
+        if (invalidation.getItemId() != null && !origin.equals(invalidation.getOrigin())) {
+            received.increment();
+            itemCache.evict(invalidation.getItemId());
+            itemCacheLoader.onInvalidated(invalidation.getItemId());
+            encodedItemCache.evict(invalidation.getItemId());
+        }
+    }
+
+    private void publishAsync(String itemId) {
+        if (itemId == null) {
+            return;
+        }
+        publish(itemId).subscribe(null, e -> log.warn("Publishing the invalidation of item {} failed", itemId, e));
+    }
+
+    private Mono<Void> publish(String itemId) {
+        return Mono.defer(() -> itemInvalidationRepository.insert(new ItemInvalidation(null, itemId, origin, System.currentTimeMillis())))
+                .doOnSuccess(invalidation -> {
+                    if (itemId != null) {
+                        published.increment();
+                    }
+                })
+                .then();
+    }
+
+    // a tailable cursor on an empty collection closes immediately, so start it with a heartbeat
+    private Mono<Void> provision() {
+        return reactiveMongoOperations.collectionExists(ItemInvalidation.class)
+                .flatMap(exists -> exists ? Mono.empty() : reactiveMongoOperations.createCollection(ItemInvalidation.class,
+                        CollectionOptions.empty().size(properties.getCollectionSize().toBytes()).capped()))
+                .onErrorResume(e -> reactiveMongoOperations.collectionExists(ItemInvalidation.class)
+                        .flatMap(exists -> exists ? Mono.empty() : Mono.error(e)))
+                .then(publish(null));
+    }
+
+    /**
+     * Skips what a reopened tail has already applied, up to and including the document it resumes
+     * after. Should that document be overwritten before the tail reaches it, this instance's own
+     * heartbeat from after the reopen ends the skipping instead, and the skipped documents count as missed.
+     */
+    static final class Resume {
+
+        private final String afterId;
+        private final String origin;
+        private final long openedAt;
+        private boolean skipping;
+        private boolean missed;
+
+        Resume(String afterId, String origin, long openedAt) {
+            this.afterId = afterId;
+            this.origin = origin;
+            this.openedAt = openedAt;
+            this.skipping = afterId != null;
+        }
+
+        boolean isNew(ItemInvalidation invalidation) {
+            if (!skipping) {
+                return true;
+            }
+            if (afterId.equals(invalidation.getId())) {
+                skipping = false;
+                return false;
+            }
+            if (origin.equals(invalidation.getOrigin()) && invalidation.getItemId() == null
+                    && invalidation.getTimestamp() >= openedAt) {
+                skipping = false;
+                missed = true;
+                return true;
+            }
+            return false;
+        }
+
+        boolean takeMissed() {
+            boolean result = missed;
+            missed = false;
+            return result;
+        }
+    }
+}
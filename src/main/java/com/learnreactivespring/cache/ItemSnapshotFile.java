@@ -0,0 +1,181 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of cached items:
+ * <pre>
+ * header:  int magic | int version | long createdMillis
+ * records: int idLength | id | byte flags | double price | int descriptionLength | description
+ * trailer: int count | long crc32 of the records and count
+ * </pre>
+ * Written to a temporary file and moved into place, so a crash mid-write leaves the previous
+ * snapshot intact. Reading maps the file and validates it, down to the records ending exactly at
+ * the trailer, before handing out any item.
+ */
+public final class ItemSnapshotFile {
+
+    static final int MAGIC = 0x49544D53;
+    static final int VERSION = 2;
+
+    private static final int HEADER = 4 + 4 + 8;
+    private static final int TRAILER = 4 + 8;
+    private static final byte HAS_PRICE = 1;
+    private static final byte HAS_DESCRIPTION = 2;
+    private static final byte HAS_ID = 4;
+
+    private ItemSnapshotFile() {
+    }
+
+    /**
+     * @return the number of items written
+     */
+    public static int write(Path path, Iterable<Item> items) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            int count = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                DataOutputStream records = new DataOutputStream(new CheckedOutputStream(out, crc));
+                for (Item item : items) {
+                    writeRecord(records, item);
+                    count++;
+                }
+                records.writeInt(count);
+                records.flush();
+                out.writeLong(crc.getValue());
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return when the snapshot was written, in epoch millis
+     * @throws IOException when the file is not a snapshot
+     */
+    public static long createdMillis(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an item snapshot: bad magic");
+            }
+            in.readInt();
+            return in.readLong();
+        } catch (EOFException e) {
+            throw new IOException("Not an item snapshot: truncated header", e);
+        }
+    }
+
+    /**
+     * @return the number of items read
+     * @throws IOException when the file is not a valid snapshot, before any item is passed on
+     */
+    public static int read(Path path, Consumer<Item> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + TRAILER || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an item snapshot: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an item snapshot: bad magic");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported item snapshot version " + buffer.getInt(4));
+            }
+            int recordsEnd = (int) size - TRAILER;
+            CRC32 crc = new CRC32();
+            ByteBuffer checked = buffer.duplicate();
+            checked.position(HEADER).limit(recordsEnd + 4);
+            crc.update(checked);
+            if (crc.getValue() != buffer.getLong(recordsEnd + 4)) {
+                throw new IOException("Item snapshot checksum mismatch");
+            }
+            int count = buffer.getInt(recordsEnd);
+            ByteBuffer in = buffer.duplicate();
+            in.position(HEADER).limit(recordsEnd);
+            try {
+                for (int i = 0; i < count; i++) {
+                    skipRecord(in);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Item snapshot records do not match the count " + count, e);
+            }
+            if (count < 0 || in.hasRemaining()) {
+                throw new IOException("Item snapshot records do not match the count " + count);
+            }
+            in.position(HEADER);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(readRecord(in));
+            }
+            return count;
+        }
+    }
+
+    // walks a record without decoding it, throws if it runs past the records
+    private static void skipRecord(ByteBuffer in) {
+        skipString(in);
+        in.position(in.position() + 1 + 8);
+        skipString(in);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length " + length);
+        }
+        in.position(in.position() + length);
+    }
+
+    private static void writeRecord(DataOutputStream out, Item item) throws IOException {
+        byte[] id = item.getId() == null ? new byte[0] : item.getId().getBytes(StandardCharsets.UTF_8);
+        byte[] description = item.getDescription() == null ? new byte[0] : item.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(id.length);
+        out.write(id);
+        out.writeByte((item.getId() != null ? HAS_ID : 0) | (item.getPrice() != null ? HAS_PRICE : 0)
+                | (item.getDescription() != null ? HAS_DESCRIPTION : 0));
+        out.writeDouble(item.getPrice() != null ? item.getPrice() : 0);
+        out.writeInt(description.length);
+        out.write(description);
+    }
+
+    private static Item readRecord(ByteBuffer in) {
+        String id = readString(in);
+        byte flags = in.get();
+        double price = in.getDouble();
+        String description = readString(in);
+        return new Item((flags & HAS_ID) != 0 ? id : null,
+                (flags & HAS_DESCRIPTION) != 0 ? description : null,
+                (flags & HAS_PRICE) != 0 ? price : null);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,468 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link ItemCache} that keeps items in direct memory, so a large catalog costs neither heap nor
+ * GC time. Items are appended to a log of direct buffer segments in a compact binary record:
+ * <pre>
+ * int length | int hash | byte flags | double price | short idLength | int descriptionLength | long written | id | description
+ * </pre>
+ * An open-addressing table of primitive arrays maps id hashes to record offsets. Once the log
+ * nears its end, overwritten and evicted records are reclaimed by sliding live records down over
+ * them in place, a few records per put, so no single write pays for a whole pass. A put that would
+ * take live data past the high-water mark, or a new id beyond max entries, is not admitted.
+ * <p>
+ * Reads are optimistic and retry under the read lock if a write interleaved, writes take the write
+ * lock. The lock is held for one record copy plus at most a compaction step.
+ */
+public class OffHeapItemStore implements ItemCache {
+
+    private static final int HEADER = 4 + 4 + 1 + 8 + 2 + 4 + 8;
+    private static final int HASH = 4;
+    private static final int FLAGS = 8;
+    private static final int PRICE = 9;
+    private static final int ID_LENGTH = 17;
+    private static final int DESCRIPTION_LENGTH = 19;
+    private static final int WRITTEN = 23;
+    private static final byte HAS_PRICE = 1;
+    private static final byte HAS_DESCRIPTION = 2;
+
+    // offsets are stored plus one, so 0 is a free slot
+    private static final long FREE = 0;
+    private static final long DELETED = -1;
+    private static final double MAX_LOAD = 0.6;
+    // live data beyond this share of the capacity is not admitted, the rest keeps compaction cheap
+    private static final double HIGH_WATER = 0.75;
+    // a compaction pass starts when less than this share is left at the end of the log
+    private static final double COMPACT_RESERVE = 0.125;
+    // log bytes slid per byte written, enough to finish a pass before the reserve is used up
+    private static final int COMPACT_STEP = 8;
+
+    private final StampedLock lock = new StampedLock();
+    private final ByteBuffer[] segments;
+    private final int segmentSize;
+    private final int maxEntries;
+    private final long highWaterBytes;
+    private final long compactFrom;
+
+    private int[] hashes;
+    private long[] offsets;
+    private volatile int size;
+    private int deleted;
+    private long writeOffset;
+    private volatile long liveBytes;
+    // the pass in progress, source is -1 between passes
+    private long compactSource = -1;
+    private long compactTarget;
+
+    public OffHeapItemStore(long capacityBytes, int segmentSize, int maxEntries) {
+        this.segmentSize = segmentSize;
+        this.segments = new ByteBuffer[(int) Math.max(1, (capacityBytes + segmentSize - 1) / segmentSize)];
+        this.maxEntries = maxEntries;
+        this.highWaterBytes = (long) (capacity() * HIGH_WATER);
+        this.compactFrom = capacity() - (long) (capacity() * COMPACT_RESERVE);
+        this.hashes = new int[16];
+        this.offsets = new long[16];
+    }
+
+    @Override
+    public Item get(String id) {
+        if (id == null) {
+            return null;
+        }
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        long stamp = lock.tryOptimisticRead();
+        Item item;
+        try {
+            item = read(hash, idBytes, id);
+        } catch (RuntimeException e) {
+            // a write moved things underneath, the stamp won't validate
+            item = null;
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                item = read(hash, idBytes, id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return item;
+    }
+
+    @Override
+    public void put(Item item) {
+        if (item.getId() == null) {
+            return;
+        }
+        byte[] id = item.getId().getBytes(StandardCharsets.UTF_8);
+        byte[] description = item.getDescription() == null ? null : item.getDescription().getBytes(StandardCharsets.UTF_8);
+        int length = HEADER + id.length + (description == null ? 0 : description.length);
+        if (id.length > Short.MAX_VALUE || length > segmentSize) {
+            evict(item.getId());
+            return;
+        }
+        int hash = hash(item.getId());
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(hash, id);
+            if (slot < 0 && size >= maxEntries) {
+                return;
+            }
+            long previousLength = slot >= 0 ? recordLength(offsets[slot] - 1) : 0;
+            long offset = liveBytes - previousLength + length > highWaterBytes ? -1 : allocate(length);
+            if (offset < 0) {
+                // rather than keep serving the previous version
+                if (slot >= 0) {
+                    remove(slot);
+                }
+                return;
+            }
+            write(offset, length, hash, item, id, description);
+            liveBytes += length;
+            if (slot >= 0) {
+                liveBytes -= recordLength(offsets[slot] - 1);
+                offsets[slot] = offset + 1;
+            } else {
+                insert(hash, offset);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void evict(String id) {
+        if (id == null) {
+            return;
+        }
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(hash, idBytes);
+            if (slot >= 0) {
+                remove(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // scans the whole table under the write lock, meant for the rare case of a lagging invalidation bus
+    @Override
+    public void evictWrittenBefore(long epochMillis) {
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot < offsets.length; slot++) {
+                if (offsets[slot] > FREE) {
+                    long offset = offsets[slot] - 1;
+                    if (segment(offset).getLong(position(offset) + WRITTEN) < epochMillis) {
+                        remove(slot);
+                    }
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Weakly consistent: items put or moved by a table resize during the iteration may be missed.
+     */
+    @Override
+    public Flux<Item> all() {
+        return Flux.defer(() -> Flux.range(0, tableLength()))
+                .handle((slot, sink) -> {
+                    Item item = readSlot(slot);
+                    if (item != null) {
+                        sink.next(item);
+                    }
+                });
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public long usedBytes() {
+        return liveBytes;
+    }
+
+    private int tableLength() {
+        long stamp = lock.readLock();
+        try {
+            return offsets.length;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Item readSlot(int slot) {
+        long stamp = lock.readLock();
+        try {
+            if (slot >= offsets.length || offsets[slot] <= FREE) {
+                return null;
+            }
+            long offset = offsets[slot] - 1;
+            return decode(offset, decodeString(offset + HEADER, segment(offset).getShort(position(offset) + ID_LENGTH)));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Item read(int hash, byte[] id, String idString) {
+        int[] currentHashes = hashes;
+        long[] currentOffsets = offsets;
+        int mask = currentOffsets.length - 1;
+        for (int slot = hash & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long stored = currentOffsets[slot];
+            if (stored == FREE) {
+                return null;
+            }
+            if (stored != DELETED && currentHashes[slot] == hash && idEquals(stored - 1, id)) {
+                return decode(stored - 1, idString);
+            }
+        }
+        return null;
+    }
+
+    private int find(int hash, byte[] id) {
+        int mask = offsets.length - 1;
+        for (int slot = hash & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long stored = offsets[slot];
+            if (stored == FREE) {
+                return -1;
+            }
+            if (stored != DELETED && hashes[slot] == hash && idEquals(stored - 1, id)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int hash, long offset) {
+        if (size + deleted + 1 > offsets.length * MAX_LOAD) {
+            // grow only when live entries need it, otherwise rehashing just drops the tombstones
+            resize(size + 1 > offsets.length * MAX_LOAD / 2 ? offsets.length * 2 : offsets.length);
+        }
+        int mask = offsets.length - 1;
+        int slot = hash & mask;
+        while (offsets[slot] > FREE) {
+            slot = (slot + 1) & mask;
+        }
+        if (offsets[slot] == DELETED) {
+            deleted--;
+        }
+        hashes[slot] = hash;
+        offsets[slot] = offset + 1;
+        size++;
+    }
+
+    private void remove(int slot) {
+        liveBytes -= recordLength(offsets[slot] - 1);
+        offsets[slot] = DELETED;
+        size--;
+        deleted++;
+    }
+
+    private void resize(int length) {
+        int[] oldHashes = hashes;
+        long[] oldOffsets = offsets;
+        int[] newHashes = new int[length];
+        long[] newOffsets = new long[length];
+        int mask = length - 1;
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] > FREE) {
+                int slot = oldHashes[i] & mask;
+                while (newOffsets[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                newHashes[slot] = oldHashes[i];
+                newOffsets[slot] = oldOffsets[i];
+            }
+        }
+        hashes = newHashes;
+        offsets = newOffsets;
+        deleted = 0;
+    }
+
+    private long allocate(int length) {
+        compactStep((long) length * COMPACT_STEP);
+        long offset = fit(writeOffset, length);
+        if (offset + length > capacity()) {
+            return -1;
+        }
+        markSkippedTail(writeOffset, offset);
+        writeOffset = offset + length;
+        if (segments[segmentIndex(offset)] == null) {
+            segments[segmentIndex(offset)] = ByteBuffer.allocateDirect(segmentSize);
+        }
+        return offset;
+    }
+
+    // slides live records down over the garbage, in log order so nothing is overwritten before it
+    // moves. Records appended while a pass runs land past its source and are slid down with the rest
+    private void compactStep(long budget) {
+        if (compactSource < 0) {
+            if (writeOffset < compactFrom) {
+                return;
+            }
+            compactSource = 0;
+            compactTarget = 0;
+        }
+        long source = compactSource;
+        long target = compactTarget;
+        while (budget > 0 && source < writeOffset) {
+            ByteBuffer segment = segments[segmentIndex(source)];
+            int position = position(source);
+            if (position + 4 > segmentSize || segment.getInt(position) == 0) {
+                source = (long) (segmentIndex(source) + 1) * segmentSize;
+                continue;
+            }
+            int length = segment.getInt(position);
+            int slot = slotOf(segment.getInt(position + HASH), source);
+            if (slot >= 0) {
+                long destination = fit(target, length);
+                markSkippedTail(target, destination);
+                if (destination != source) {
+                    byte[] record = new byte[length];
+                    get(segment, position, record);
+                    put(segments[segmentIndex(destination)], position(destination), record);
+                    offsets[slot] = destination + 1;
+                }
+                target = destination + length;
+            }
+            source += length;
+            budget -= length;
+        }
+        if (source >= writeOffset) {
+            writeOffset = target;
+            compactSource = -1;
+        } else {
+            compactSource = source;
+            compactTarget = target;
+        }
+    }
+
+    private int slotOf(int hash, long offset) {
+        int mask = offsets.length - 1;
+        for (int slot = hash & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            if (offsets[slot] == FREE) {
+                return -1;
+            }
+            if (offsets[slot] == offset + 1) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private long fit(long offset, int length) {
+        return position(offset) + length > segmentSize ? (long) (segmentIndex(offset) + 1) * segmentSize : offset;
+    }
+
+    // a zero length tells a scan to continue in the next segment
+    private void markSkippedTail(long from, long to) {
+        if (from < to && position(from) + 4 <= segmentSize && segments[segmentIndex(from)] != null) {
+            segments[segmentIndex(from)].putInt(position(from), 0);
+        }
+    }
+
+    private void write(long offset, int length, int hash, Item item, byte[] id, byte[] description) {
+        ByteBuffer segment = segment(offset);
+        int position = position(offset);
+        byte flags = (byte) ((item.getPrice() != null ? HAS_PRICE : 0) | (description != null ? HAS_DESCRIPTION : 0));
+        segment.putInt(position, length);
+        segment.putInt(position + HASH, hash);
+        segment.put(position + FLAGS, flags);
+        segment.putDouble(position + PRICE, item.getPrice() != null ? item.getPrice() : 0);
+        segment.putShort(position + ID_LENGTH, (short) id.length);
+        segment.putInt(position + DESCRIPTION_LENGTH, description == null ? 0 : description.length);
+        segment.putLong(position + WRITTEN, System.currentTimeMillis());
+        put(segment, position + HEADER, id);
+        if (description != null) {
+            put(segment, position + HEADER + id.length, description);
+        }
+    }
+
+    private Item decode(long offset, String id) {
+        ByteBuffer segment = segment(offset);
+        int position = position(offset);
+        byte flags = segment.get(position + FLAGS);
+        int idLength = segment.getShort(position + ID_LENGTH);
+        String description = (flags & HAS_DESCRIPTION) != 0 ?
+                decodeString(offset + HEADER + idLength, segment.getInt(position + DESCRIPTION_LENGTH)) : null;
+        Double price = (flags & HAS_PRICE) != 0 ? segment.getDouble(position + PRICE) : null;
+        return new Item(id, description, price);
+    }
+
+    private String decodeString(long offset, int length) {
+        if (length < 0 || position(offset) + length > segmentSize) {
+            throw new IllegalStateException("Corrupt record");
+        }
+        byte[] bytes = new byte[length];
+        get(segment(offset), position(offset), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // absolute bulk gets and puts only arrive in Java 13, a duplicate keeps the shared position untouched
+    private static void get(ByteBuffer segment, int position, byte[] bytes) {
+        ByteBuffer view = segment.duplicate();
+        view.position(position);
+        view.get(bytes);
+    }
+
+    private static void put(ByteBuffer segment, int position, byte[] bytes) {
+        ByteBuffer view = segment.duplicate();
+        view.position(position);
+        view.put(bytes);
+    }
+
+    private boolean idEquals(long offset, byte[] id) {
+        ByteBuffer segment = segment(offset);
+        int position = position(offset);
+        if (segment.getShort(position + ID_LENGTH) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (segment.get(position + HEADER + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int recordLength(long offset) {
+        return segment(offset).getInt(position(offset));
+    }
+
+    private ByteBuffer segment(long offset) {
+        return segments[segmentIndex(offset)];
+    }
+
+    private int segmentIndex(long offset) {
+        return (int) (offset / segmentSize);
+    }
+
+    private int position(long offset) {
+        return (int) (offset % segmentSize);
+    }
+
+    private long capacity() {
+        return (long) segments.length * segmentSize;
+    }
+
+    private static int hash(String id) {
+        int hash = id.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
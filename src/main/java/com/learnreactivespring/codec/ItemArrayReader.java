@@ -0,0 +1,98 @@
+package com.learnreactivespring.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnreactivespring.config.BulkProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.exception.ErrorCode;
+import com.learnreactivespring.exception.ItemServiceException;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Decodes a JSON array request body into a {@link Flux} of items as the bytes arrive, so a bulk
+ * request only holds the element being parsed rather than the whole payload. Oversized bodies
+ * are rejected from Content-Length before anything is read, and chunked ones as soon as they
+ * cross the limit.
+ */
+@Component
+public class ItemArrayReader {
+
+    private static final ResolvableType ITEM = ResolvableType.forClass(Item.class);
+
+    private final BulkProperties properties;
+    private final Jackson2JsonDecoder decoder;
+    private final ItemServiceException requestTooLarge;
+    private final ItemServiceException elementTooLarge;
+
+    public ItemArrayReader(BulkProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.decoder = new Jackson2JsonDecoder(objectMapper);
+        this.decoder.setMaxInMemorySize((int) properties.getMaxElementSize().toBytes());
+        this.requestTooLarge = new ItemServiceException(ErrorCode.PAYLOAD_TOO_LARGE,
+                "Request body exceeds " + properties.getMaxRequestSize().toBytes() + " bytes");
+        this.elementTooLarge = new ItemServiceException(ErrorCode.PAYLOAD_TOO_LARGE,
+                "Item exceeds " + properties.getMaxElementSize().toBytes() + " bytes");
+    }
+
+    public Flux<Item> read(ServerHttpRequest request) {
+        long maxRequestSize = properties.getMaxRequestSize().toBytes();
+        if (request.getHeaders().getContentLength() > maxRequestSize) {
+            return Flux.error(requestTooLarge);
+        }
+        MediaType contentType = request.getHeaders().getContentType();
+        if (contentType != null && !decoder.canDecode(ITEM, contentType)) {
+            List<MediaType> supported = decoder.getDecodableMimeTypes().stream().map(MediaType::asMediaType)
+                    .collect(Collectors.toList());
+            return Flux.error(new UnsupportedMediaTypeStatusException(contentType, supported));
+        }
+        int maxElementSize = (int) properties.getMaxElementSize().toBytes();
+        return Flux.defer(() -> {
+            long[] received = {0};
+            Flux<DataBuffer> body = request.getBody()
+                    .doOnNext(buffer -> {
+                        received[0] += buffer.readableByteCount();
+                        if (received[0] > maxRequestSize) {
+                            DataBufferUtils.release(buffer);
+                            throw requestTooLarge;
+                        }
+                    })
+                    .flatMapIterable(buffer -> split(buffer, maxElementSize));
+            return decoder.decode(body, ITEM, contentType != null ? contentType : MediaType.APPLICATION_JSON, Collections.emptyMap());
+        })
+                .cast(Item.class)
+                .onErrorMap(DataBufferLimitException.class, e -> elementTooLarge)
+                .onErrorMap(DecodingException.class, e -> new ItemServiceException(ErrorCode.BAD_REQUEST, e.getMessage()));
+    }
+
+    // the decoder only counts buffers that don't complete an element against its limit, so a large
+    // buffer holding a whole oversized element would slip through unless it is cut to the limit first
+    private static List<DataBuffer> split(DataBuffer buffer, int maxSize) {
+        int length = buffer.readableByteCount();
+        if (length <= maxSize) {
+            return Collections.singletonList(buffer);
+        }
+        List<DataBuffer> slices = new ArrayList<>(length / maxSize + 1);
+        try {
+            for (int index = buffer.readPosition(); index < buffer.writePosition(); index += maxSize) {
+                slices.add(buffer.retainedSlice(index, Math.min(maxSize, buffer.writePosition() - index)));
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        return slices;
+    }
+}
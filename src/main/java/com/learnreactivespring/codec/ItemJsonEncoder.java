@@ -0,0 +1,243 @@
+package com.learnreactivespring.codec;
+
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.document.ItemCapped;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link Item} and {@link ItemCapped} as JSON straight into the response buffers, skipping
+ * Jackson's reflective serialization. The output is byte-for-byte what the default Jackson
+ * configuration produces. Flux bodies become a JSON array, or newline-delimited objects flushed
+ * one at a time for the streaming media types.
+ */
+public class ItemJsonEncoder extends AbstractEncoder<Object> implements HttpMessageEncoder<Object> {
+
+    @SuppressWarnings("deprecation")
+    private static final List<MediaType> STREAMING_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_STREAM_JSON, MediaType.APPLICATION_NDJSON);
+
+    private static final MimeType[] MIME_TYPES = {MediaType.APPLICATION_JSON, new MediaType("application", "*+json"),
+            STREAMING_MEDIA_TYPES.get(0), STREAMING_MEDIA_TYPES.get(1)};
+
+    private static final byte[] ID = bytes("{\"id\":");
+    private static final byte[] DESCRIPTION = bytes(",\"description\":");
+    private static final byte[] PRICE = bytes(",\"price\":");
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] EMPTY_ARRAY = bytes("[]");
+    private static final byte[] HEX = bytes("0123456789ABCDEF");
+
+    // buffers grow as needed, these just avoid reallocating for typical items
+    private static final int ITEM_SIZE = 128;
+    private static final int ARRAY_SIZE = 8192;
+
+    public ItemJsonEncoder() {
+        super(MIME_TYPES);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        Class<?> type = elementType.toClass();
+        return (type == Item.class || type == ItemCapped.class) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return STREAMING_MEDIA_TYPES;
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        if (isStreaming(mimeType)) {
+            return Flux.from(inputStream).map(value -> write(value, bufferFactory, (byte) '\n'));
+        }
+        // like Jackson, a JSON array is only written once complete so a failing source still gets an error status
+        return Flux.from(inputStream)
+                .collect(() -> bufferFactory.allocateBuffer(ARRAY_SIZE), (DataBuffer buffer, Object value) -> {
+                    buffer.write(buffer.writePosition() == 0 ? (byte) '[' : (byte) ',');
+                    writeObject(buffer, value);
+                })
+                .map(buffer -> buffer.writePosition() == 0 ? buffer.write(EMPTY_ARRAY) : buffer.write((byte) ']'))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .flux();
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        return write(value, bufferFactory, (byte) 0);
+    }
+
+    private boolean isStreaming(MimeType mimeType) {
+        for (MediaType streamingType : STREAMING_MEDIA_TYPES) {
+            if (streamingType.equalsTypeAndSubtype(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DataBuffer write(Object value, DataBufferFactory bufferFactory, byte suffix) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(ITEM_SIZE);
+        try {
+            writeObject(buffer, value);
+            if (suffix != 0) {
+                buffer.write(suffix);
+            }
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private static void writeObject(DataBuffer buffer, Object value) {
+        if (value instanceof Item) {
+            Item item = (Item) value;
+            writeObject(buffer, item.getId(), item.getDescription(), item.getPrice());
+        } else {
+            ItemCapped item = (ItemCapped) value;
+            writeObject(buffer, item.getId(), item.getDescription(), item.getPrice());
+        }
+    }
+
+    private static void writeObject(DataBuffer buffer, String id, String description, Double price) {
+        buffer.write(ID);
+        writeString(buffer, id);
+        buffer.write(DESCRIPTION);
+        writeString(buffer, description);
+        buffer.write(PRICE);
+        writeNumber(buffer, price);
+        buffer.write((byte) '}');
+    }
+
+    private static void writeString(DataBuffer buffer, String value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+        buffer.write((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    buffer.write((byte) '\\');
+                }
+                buffer.write((byte) c);
+            } else if (c < 0x20) {
+                writeControl(buffer, c);
+            } else if (c < 0x800) {
+                buffer.write((byte) (0xc0 | (c >> 6)));
+                buffer.write((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson escapes each half of a surrogate pair rather than writing 4-byte UTF-8
+                writeEscaped(buffer, c);
+            } else {
+                buffer.write((byte) (0xe0 | (c >> 12)));
+                buffer.write((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.write((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        buffer.write((byte) '"');
+    }
+
+    private static void writeControl(DataBuffer buffer, char c) {
+        buffer.write((byte) '\\');
+        switch (c) {
+            case '\n':
+                buffer.write((byte) 'n');
+                break;
+            case '\r':
+                buffer.write((byte) 'r');
+                break;
+            case '\t':
+                buffer.write((byte) 't');
+                break;
+            case '\b':
+                buffer.write((byte) 'b');
+                break;
+            case '\f':
+                buffer.write((byte) 'f');
+                break;
+            default:
+                writeUnicode(buffer, c);
+        }
+    }
+
+    private static void writeEscaped(DataBuffer buffer, char c) {
+        buffer.write((byte) '\\');
+        writeUnicode(buffer, c);
+    }
+
+    private static void writeUnicode(DataBuffer buffer, char c) {
+        buffer.write((byte) 'u');
+        buffer.write(HEX[c >> 12]);
+        buffer.write(HEX[(c >> 8) & 0xf]);
+        buffer.write(HEX[(c >> 4) & 0xf]);
+        buffer.write(HEX[c & 0xf]);
+    }
+
+    private static void writeNumber(DataBuffer buffer, Double value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+        double price = value;
+        // whole prices are the common case and print as digits plus ".0" without going through a String;
+        // Double.toString switches to exponent notation from 1e7 and -0.0 keeps its sign
+        if (price == Math.rint(price) && Math.abs(price) < 1e7 && Double.doubleToRawLongBits(price) != Double.doubleToRawLongBits(-0.0)) {
+            writeLong(buffer, (long) price);
+            buffer.write((byte) '.');
+            buffer.write((byte) '0');
+            return;
+        }
+        String text = Double.toString(price);
+        // Jackson quotes non-finite numbers by default
+        boolean quote = Double.isNaN(price) || Double.isInfinite(price);
+        if (quote) {
+            buffer.write((byte) '"');
+        }
+        for (int i = 0; i < text.length(); i++) {
+            buffer.write((byte) text.charAt(i));
+        }
+        if (quote) {
+            buffer.write((byte) '"');
+        }
+    }
+
+    private static void writeLong(DataBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.write((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
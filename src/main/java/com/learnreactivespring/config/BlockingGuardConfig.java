@@ -0,0 +1,20 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.scheduler.BlockingCallGuard;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class BlockingGuardConfig {
+
+    // runs ahead of every regular bean, so BlockHound is in place before any scheduler thread starts
+    @Bean
+    public static BeanFactoryPostProcessor blockingGuardInstaller(Environment environment) {
+        return beanFactory -> BlockingCallGuard.install(Binder.get(environment)
+                .bind("item.blocking-guard", BlockingGuardProperties.class)
+                .orElseGet(BlockingGuardProperties::new));
+    }
+}
@@ -0,0 +1,21 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("item.blocking-guard")
+public class BlockingGuardProperties {
+
+    // needs -XX:+AllowRedefinitionToDifferentClassNames on JDK 13+
+    private boolean enabled = false;
+
+    private Mode mode = Mode.REPORT;
+
+    public enum Mode {
+        // throw BlockingOperationError into the offending pipeline
+        FAIL,
+        // log and count, let the call proceed
+        REPORT
+    }
+}
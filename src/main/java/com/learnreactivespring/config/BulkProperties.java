@@ -0,0 +1,19 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties("item.bulk")
+public class BulkProperties {
+
+    // the decoder only ever holds one array element in memory, up to this size
+    private DataSize maxElementSize = DataSize.ofKilobytes(16);
+
+    // checked against Content-Length up front and against the bytes received for chunked bodies
+    private DataSize maxRequestSize = DataSize.ofMegabytes(64);
+
+    // saves in flight per request
+    private int writeConcurrency = 16;
+}
@@ -0,0 +1,93 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.cache")
+public class CacheProperties {
+
+    // items are only served from the cache while Mongo is failing, unless serve-reads is on
+    private boolean enabled = false;
+
+    private int maxEntries = 10_000;
+
+    private Type type = Type.HEAP;
+
+    // answer get-by-id from the cache before asking Mongo; other instances' writes are not seen
+    private boolean serveReads = false;
+
+    // fill the cache with the whole catalog once the application is up
+    private boolean loadOnStartup = false;
+
+    private OffHeap offHeap = new OffHeap();
+
+    private Snapshot snapshot = new Snapshot();
+
+    private Invalidation invalidation = new Invalidation();
+
+    private Encoded encoded = new Encoded();
+
+    public enum Type {
+        HEAP,
+        OFF_HEAP
+    }
+
+    @Data
+    public static class OffHeap {
+
+        // direct memory, so -XX:MaxDirectMemorySize has to allow for it
+        private DataSize capacity = DataSize.ofGigabytes(1);
+
+        // largest single item, direct buffers are allocated a segment at a time
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    public static class Snapshot {
+
+        // write the cached items to a local file and load it before serving after a restart
+        private boolean enabled = false;
+
+        private String path = "data/item-cache.snapshot";
+
+        // also written on shutdown
+        private Duration interval = Duration.ofMinutes(5);
+
+        // loaded items are re-read from Mongo this many ids per query, one query at a time
+        private int refreshBatchSize = 500;
+
+        // an older snapshot is ignored on startup, it would serve too much stale data until refreshed
+        private Duration maxAge = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Invalidation {
+
+        // evict items other instances write, published through a capped collection
+        private boolean enabled = false;
+
+        private DataSize collectionSize = DataSize.ofMegabytes(16);
+
+        private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+        // nothing received for this long, heartbeats included, counts as the bus lagging
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        // while the bus lags, entries older than this are expired instead
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Encoded {
+
+        // keep get-by-id responses as encoded bytes per media type, written back without serializing
+        private boolean enabled = false;
+
+        // items, each holding one body per media type requested
+        private int maxEntries = 10_000;
+    }
+}
@@ -0,0 +1,34 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.capped-collection")
+public class CappedCollectionProperties {
+
+    private boolean provision = true;
+
+    // sizing: enough room to hold expected-events-per-second for the retention window
+    private int expectedEventsPerSecond = 20;
+
+    private Duration retention = Duration.ofMinutes(5);
+
+    private int averageDocumentBytes = 100;
+
+    private double headroom = 1.5;
+
+    // convert an existing uncapped collection instead of only reporting it
+    private boolean convertIfUncapped = false;
+
+    public long maxDocuments() {
+        return Math.max(1, (long) expectedEventsPerSecond * retention.getSeconds());
+    }
+
+    public long sizeBytes() {
+        // Mongo rounds capped sizes below 4096 bytes up anyway
+        return Math.max(4096, (long) (maxDocuments() * averageDocumentBytes * headroom));
+    }
+}
@@ -0,0 +1,35 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.capped-producer")
+public class CappedProducerProperties {
+
+    private boolean enabled = false;
+
+    // when false the producer only runs once started explicitly, e.g. from a benchmark
+    private boolean autoStartup = true;
+
+    private int eventsPerSecond = 1000;
+
+    // events are generated in small bursts every tick to smooth the rate
+    private Duration tick = Duration.ofMillis(10);
+
+    // inserts are coalesced into bulk writes of up to this many documents...
+    private int batchSize = 500;
+
+    // ...or whatever accumulated within this delay
+    private Duration maxBatchDelay = Duration.ofMillis(50);
+
+    private int concurrentWrites = 2;
+
+    // batches waiting for a write slot; beyond this new batches are dropped
+    private int maxPendingBatches = 16;
+
+    // number of distinct descriptions, i.e. keys for conflating subscribers
+    private int distinctDescriptions = 100;
+}
@@ -0,0 +1,16 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.codec.ItemJsonEncoder;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CodecConfig {
+
+    // custom encoders that only handle specific types are consulted before the Jackson catch-all
+    @Bean
+    public CodecCustomizer itemJsonCodec() {
+        return configurer -> configurer.customCodecs().register(new ItemJsonEncoder());
+    }
+}
@@ -0,0 +1,35 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("item.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    // a request slower than this counts as a congestion signal and shrinks the limit
+    private Duration latencyThreshold = Duration.ofMillis(250);
+
+    private double backoffRatio = 0.9;
+
+    // fraction of a route's limit that writes may occupy, so reads keep flowing once writes are shed
+    private double writeShare = 0.7;
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    // keyed by path prefix, e.g. "[/v1/items]"
+    private Map<String, RouteLimit> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class RouteLimit {
+        private int initialLimit = 100;
+        private int minLimit = 10;
+        private int maxLimit = 500;
+    }
+}
@@ -0,0 +1,26 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("item.enrichment")
+public class EnrichmentProperties {
+
+    // items enriched at once; output order is preserved regardless
+    private int concurrency = 16;
+
+    private int prefetch = 32;
+
+    // per enricher and item; on timeout the enricher's fallback value is used
+    private Duration timeout = Duration.ofMillis(200);
+
+    private double taxRate = 0.18;
+
+    // conversion rates from the stored price currency
+    private Map<String, Double> currencyRates = new LinkedHashMap<>();
+}
@@ -0,0 +1,14 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.error-log")
+public class ErrorLogProperties {
+
+    // at most one log line per exception type in this window, the rest are counted
+    private Duration interval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,31 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.hedging")
+public class HedgingProperties {
+
+    private boolean enabled = false;
+
+    // hedge once the primary read is slower than this percentile of recent reads
+    private double percentile = 0.95;
+
+    private Duration minDelay = Duration.ofMillis(5);
+
+    // also used until enough reads have been seen
+    private Duration maxDelay = Duration.ofMillis(200);
+
+    // at most this fraction of reads get a second request
+    private double budgetRatio = 0.05;
+
+    private Duration window = Duration.ofSeconds(30);
+
+    private int minSamples = 200;
+
+    // secondary-preferred may return a version up to item.read-routing.max-staleness old, it is not cached
+    private ReadRoutingProperties.ReadTarget target = ReadRoutingProperties.ReadTarget.PRIMARY;
+}
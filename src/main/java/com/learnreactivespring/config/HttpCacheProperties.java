@@ -0,0 +1,52 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("item.http-cache")
+public class HttpCacheProperties {
+
+    // Cache-Control for successful GET responses, keyed by path pattern, e.g. "[/v1/items/{id}]"
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    private ListCache listCache = new ListCache();
+
+    @Data
+    public static class Policy {
+
+        private Duration maxAge = Duration.ZERO;
+
+        private Duration staleWhileRevalidate;
+
+        private Duration staleIfError;
+
+        // private keeps shared caches such as the CDN from storing the response
+        private boolean cachePrivate = false;
+    }
+
+    @Data
+    public static class ListCache {
+
+        // keep encoded list responses in memory, keyed by path, query parameters and Accept
+        private boolean enabled = false;
+
+        private List<String> paths = new ArrayList<>(List.of("/v1/items", "/v1/fun/items"));
+
+        private Duration ttl = Duration.ofSeconds(1);
+
+        // served while a background request refreshes the entry
+        private Duration staleWhileRevalidate = Duration.ofSeconds(10);
+
+        // served when refreshing the entry fails
+        private Duration staleIfError = Duration.ofMinutes(5);
+
+        private int maxEntries = 1_000;
+    }
+}
@@ -0,0 +1,30 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.idempotency")
+public class IdempotencyProperties {
+
+    // replay item creates sent again with the same Idempotency-Key header
+    private boolean enabled = false;
+
+    // how long a key is remembered, in memory and in Mongo
+    private Duration ttl = Duration.ofHours(24);
+
+    // keys held in memory; beyond this, keys are only checked against Mongo
+    private int maxEntries = 100_000;
+
+    // also record keys in Mongo, so retries that reach another or a restarted instance are replayed too
+    private boolean persist = true;
+
+    private int maxKeyLength = 255;
+
+    // how long a persisted key is held while its create runs; a retry after that runs the create itself
+    private Duration lease = Duration.ofSeconds(30);
+
+    private Duration sweepInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,33 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.cache.HeapItemCache;
+import com.learnreactivespring.cache.ItemCache;
+import com.learnreactivespring.cache.OffHeapItemStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ItemCacheConfig {
+
+    @Bean
+    public ItemCache itemCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        if (!properties.isEnabled()) {
+            return ItemCache.NONE;
+        }
+        ItemCache itemCache;
+        if (properties.getType() == CacheProperties.Type.OFF_HEAP) {
+            OffHeapItemStore offHeapItemStore = new OffHeapItemStore(properties.getOffHeap().getCapacity().toBytes(),
+                    (int) properties.getOffHeap().getSegmentSize().toBytes(), properties.getMaxEntries());
+            Gauge.builder("item.cache.off-heap.used", offHeapItemStore, OffHeapItemStore::usedBytes)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            itemCache = offHeapItemStore;
+        } else {
+            itemCache = new HeapItemCache(properties.getMaxEntries());
+        }
+        Gauge.builder("item.cache.size", itemCache, ItemCache::size).register(meterRegistry);
+        return itemCache;
+    }
+}
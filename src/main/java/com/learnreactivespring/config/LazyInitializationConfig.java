@@ -0,0 +1,43 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.repository.ItemReadRouter;
+import com.learnreactivespring.scheduler.BlockingCallGuard;
+import com.learnreactivespring.service.ItemService;
+import com.learnreactivespring.startup.MongoReadinessCheck;
+import com.learnreactivespring.startup.StartupHealthIndicator;
+import com.learnreactivespring.startup.WarmupRunner;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Beans that stay eager when spring.main.lazy-initialization is on (fast-startup profile), so the
+ * request path, the Mongo pool and the guards are in place before the first request instead of
+ * being built on an event loop while it waits. Beans that register a readiness step must be among
+ * them, or the step would only be registered once something first asks for the bean.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerItemBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                HttpHandler.class,
+                MongoClient.class,
+                ItemService.class,
+                ItemReadRouter.class,
+                BlockingCallGuard.class,
+                StartupHealthIndicator.class,
+                MongoReadinessCheck.class,
+                WarmupRunner.class);
+    }
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerControllers() {
+        return (beanName, beanDefinition, beanType) -> AnnotatedElementUtils.hasAnnotation(beanType, Controller.class);
+    }
+}
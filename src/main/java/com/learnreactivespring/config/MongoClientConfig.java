@@ -0,0 +1,71 @@
+package com.learnreactivespring.config;
+
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Configuration
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientTuning(MongoClientTuningProperties properties,
+                                                                  MeterRegistry meterRegistry) {
+        return settings -> {
+            MongoClientTuningProperties.Pool pool = properties.getPool();
+            settings.applyToConnectionPoolSettings(builder -> builder
+                    .maxSize(pool.getMaxSize())
+                    .minSize(pool.getMinSize())
+                    .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .maxConnectionLifeTime(pool.getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .maintenanceFrequency(pool.getMaintenanceFrequency().toMillis(), TimeUnit.MILLISECONDS)
+                    .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+                    .addConnectionPoolListener(new MongoPoolEventMetrics(meterRegistry)));
+            settings.addCommandListener(new MongoMetricsCommandListener(meterRegistry));
+            settings.applyToSocketSettings(builder -> builder
+                    .connectTimeout((int) properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .readTimeout((int) properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS));
+            settings.applyToClusterSettings(builder -> builder
+                    .serverSelectionTimeout(properties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS));
+
+            if (!properties.getCompressors().isEmpty()) {
+                settings.compressorList(compressors(properties.getCompressors()));
+            }
+            if (properties.getReadPreference() != null) {
+                settings.readPreference(ReadPreference.valueOf(properties.getReadPreference()));
+            }
+            if (properties.getReadConcern() != null) {
+                settings.readConcern(new ReadConcern(ReadConcernLevel.fromString(properties.getReadConcern())));
+            }
+        };
+    }
+
+    private static List<MongoCompressor> compressors(List<String> names) {
+        return names.stream()
+                .map(name -> {
+                    switch (name.toLowerCase(Locale.ROOT)) {
+                        case "zstd":
+                            return MongoCompressor.createZstdCompressor();
+                        case "snappy":
+                            return MongoCompressor.createSnappyCompressor();
+                        case "zlib":
+                            return MongoCompressor.createZlibCompressor();
+                        default:
+                            throw new IllegalArgumentException("Unsupported Mongo compressor: " + name);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,40 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("item.mongo")
+public class MongoClientTuningProperties {
+
+    private Pool pool = new Pool();
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    private Duration readTimeout = Duration.ofSeconds(0);
+
+    private Duration serverSelectionTimeout = Duration.ofSeconds(30);
+
+    // zstd, snappy or zlib, in order of preference
+    private List<String> compressors = new ArrayList<>();
+
+    // e.g. primary, primaryPreferred, secondaryPreferred
+    private String readPreference;
+
+    // e.g. local, majority, linearizable
+    private String readConcern;
+
+    @Data
+    public static class Pool {
+        private int maxSize = 100;
+        private int minSize = 0;
+        private Duration maxWaitTime = Duration.ofMinutes(2);
+        private Duration maxConnectionIdleTime = Duration.ofSeconds(0);
+        private Duration maxConnectionLifeTime = Duration.ofSeconds(0);
+        private Duration maintenanceFrequency = Duration.ofMinutes(1);
+    }
+}
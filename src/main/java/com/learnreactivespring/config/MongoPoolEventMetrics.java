@@ -0,0 +1,50 @@
+package com.learnreactivespring.config;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClearedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts pool churn and checkout failures per server. Pool size, checked-out and wait queue
+ * gauges come from Micrometer's {@link io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener},
+ * registered next to this one.
+ */
+public class MongoPoolEventMetrics implements ConnectionPoolListener {
+
+    private final MeterRegistry meterRegistry;
+
+    public MongoPoolEventMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        count("mongodb.driver.pool.created", event.getConnectionId().getServerId());
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        meterRegistry.counter("mongodb.driver.pool.closed",
+                "server.address", event.getConnectionId().getServerId().getAddress().toString(),
+                "reason", event.getReason().name())
+                .increment();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        count("mongodb.driver.pool.checkoutfailed", event.getServerId());
+    }
+
+    @Override
+    public void connectionPoolCleared(ConnectionPoolClearedEvent event) {
+        count("mongodb.driver.pool.cleared", event.getServerId());
+    }
+
+    private void count(String name, ServerId serverId) {
+        meterRegistry.counter(name, "server.address", serverId.getAddress().toString()).increment();
+    }
+}
@@ -0,0 +1,98 @@
+package com.learnreactivespring.config;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.Connection;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.resources.LoopResources;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@Slf4j
+public class NettyServerConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources serverLoopResources(NettyServerProperties properties) {
+        int workers = properties.getEventLoopThreads() > 0
+                ? properties.getEventLoopThreads()
+                : Runtime.getRuntime().availableProcessors();
+        return LoopResources.create("item-server", properties.getSelectorThreads(), workers, true);
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyServerTuning(NettyServerProperties properties,
+                                                                                       LoopResources serverLoopResources) {
+        return factory -> factory.addServerCustomizers(httpServer -> tune(httpServer, properties, serverLoopResources));
+    }
+
+    HttpServer tune(HttpServer httpServer, NettyServerProperties properties, LoopResources loopResources) {
+        HttpServer server = httpServer;
+        if (properties.getEventLoopThreads() > 0) {
+            server = server.runOn(loopResources, properties.isPreferNative());
+        }
+        if (properties.getSoBacklog() != null) {
+            server = server.option(ChannelOption.SO_BACKLOG, properties.getSoBacklog());
+        }
+        if (properties.getAllocator().isEnabled()) {
+            server = server.childOption(ChannelOption.ALLOCATOR, allocator(properties.getAllocator()));
+        }
+        if (properties.getIdleTimeout() != null) {
+            server = server.idleTimeout(properties.getIdleTimeout());
+        }
+        if (properties.getMaxHeaderSize() != null || properties.getMaxInitialLineLength() != null) {
+            server = server.httpRequestDecoder(spec -> {
+                if (properties.getMaxHeaderSize() != null) {
+                    spec.maxHeaderSize(properties.getMaxHeaderSize());
+                }
+                if (properties.getMaxInitialLineLength() != null) {
+                    spec.maxInitialLineLength(properties.getMaxInitialLineLength());
+                }
+                return spec;
+            });
+        }
+        if (properties.getReadTimeout() != null || properties.getWriteTimeout() != null) {
+            // handlers added per request are removed again once the response completes; the read
+            // timeout only guards request bodies, a bodiless request has nothing left to read
+            server = server.doOnConnection(connection -> {
+                if (properties.getReadTimeout() != null && hasBody(connection)) {
+                    connection.addHandlerLast("itemReadTimeout",
+                            new RequestBodyReadTimeoutHandler(properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS));
+                }
+                if (properties.getWriteTimeout() != null) {
+                    connection.addHandlerLast("itemWriteTimeout",
+                            new WriteTimeoutHandler(properties.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS));
+                }
+            });
+        }
+        if (properties.isH2c()) {
+            server = server.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+        }
+        log.info("Netty server tuning applied: {}", properties);
+        return server;
+    }
+
+    private static boolean hasBody(Connection connection) {
+        if (!(connection instanceof HttpServerRequest)) {
+            return false;
+        }
+        HttpHeaders headers = ((HttpServerRequest) connection).requestHeaders();
+        return headers.contains(HttpHeaderNames.TRANSFER_ENCODING) || headers.getInt(HttpHeaderNames.CONTENT_LENGTH, 0) > 0;
+    }
+
+    private static PooledByteBufAllocator allocator(NettyServerProperties.Allocator allocator) {
+        return new PooledByteBufAllocator(allocator.isPreferDirect(), allocator.getHeapArenas(),
+                allocator.getDirectArenas(), allocator.getPageSize(), allocator.getMaxOrder(),
+                allocator.getSmallCacheSize(), allocator.getNormalCacheSize(), allocator.isUseCacheForAllThreads());
+    }
+}
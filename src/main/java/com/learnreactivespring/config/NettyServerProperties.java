@@ -0,0 +1,52 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Unset values keep the Reactor Netty defaults.
+ */
+@Data
+@ConfigurationProperties("item.netty")
+public class NettyServerProperties {
+
+    // 0 uses the shared Reactor Netty event loops
+    private int eventLoopThreads = 0;
+
+    private int selectorThreads = 1;
+
+    // epoll on Linux when the native transport is on the classpath
+    private boolean preferNative = true;
+
+    private Integer soBacklog;
+
+    private Duration idleTimeout;
+
+    private Duration readTimeout;
+
+    private Duration writeTimeout;
+
+    private Integer maxHeaderSize;
+
+    private Integer maxInitialLineLength;
+
+    // serve cleartext HTTP/2 alongside HTTP/1.1
+    private boolean h2c = false;
+
+    private Allocator allocator = new Allocator();
+
+    @Data
+    public static class Allocator {
+        private boolean enabled = false;
+        private boolean preferDirect = true;
+        private int heapArenas = 0;
+        private int directArenas = Runtime.getRuntime().availableProcessors() * 2;
+        private int pageSize = 8192;
+        private int maxOrder = 11;
+        private int smallCacheSize = 256;
+        private int normalCacheSize = 64;
+        private boolean useCacheForAllThreads = false;
+    }
+}
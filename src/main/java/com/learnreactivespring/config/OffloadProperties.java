@@ -0,0 +1,22 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("item.offload")
+public class OffloadProperties {
+
+    private Executor executor = Executor.BOUNDED_ELASTIC;
+
+    // bounded elastic only; virtual threads are not capped
+    private int threadCap = 10 * Runtime.getRuntime().availableProcessors();
+
+    private int queuedTaskCap = 100_000;
+
+    public enum Executor {
+        BOUNDED_ELASTIC,
+        // needs a Java 21 runtime, falls back to BOUNDED_ELASTIC otherwise
+        VIRTUAL_THREADS
+    }
+}
@@ -0,0 +1,16 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.analytics.PriceIndex;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty("item.price-index.enabled")
+public class PriceIndexConfig {
+
+    @Bean
+    public PriceIndex priceIndex() {
+        return new PriceIndex();
+    }
+}
@@ -0,0 +1,21 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.price-index")
+public class PriceIndexProperties {
+
+    private boolean enabled = false;
+
+    // queries see writes at most this late, the sorted arrays are rebuilt at most this often
+    private Duration refreshInterval = Duration.ofMillis(200);
+
+    // follow writes from other instances through a change stream (needs a replica set)
+    private boolean changeStream = false;
+
+    private int maxResults = 1000;
+}
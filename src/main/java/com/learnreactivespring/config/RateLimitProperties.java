@@ -0,0 +1,33 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties("item.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private long capacity = 100;
+
+    private long refillPerSecond = 50;
+
+    // clients without this header are keyed by remote address
+    private String keyHeader = "X-API-Key";
+
+    private int maxKeys = 100_000;
+
+    // buckets that keys arriving while max-keys is reached are hashed onto
+    private int overflowBuckets = 1024;
+
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    private List<String> paths = new ArrayList<>();
+}
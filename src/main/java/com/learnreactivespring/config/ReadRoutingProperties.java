@@ -0,0 +1,27 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.service.ReadEndpoint;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("item.read-routing")
+public class ReadRoutingProperties {
+
+    private boolean enabled = false;
+
+    // the driver rejects values below 90 seconds
+    private Duration maxStaleness = Duration.ofSeconds(90);
+
+    // endpoints not listed here read from the primary
+    private Map<ReadEndpoint, ReadTarget> endpoints = new EnumMap<>(ReadEndpoint.class);
+
+    public enum ReadTarget {
+        PRIMARY,
+        SECONDARY_PREFERRED
+    }
+}
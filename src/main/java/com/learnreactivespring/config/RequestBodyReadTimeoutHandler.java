@@ -0,0 +1,28 @@
+package com.learnreactivespring.config;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read timeout covering only the request body: it removes itself once the last content has been
+ * read, so long responses such as the item streams are not cut off while the client, rightly,
+ * sends nothing more.
+ */
+class RequestBodyReadTimeoutHandler extends ReadTimeoutHandler {
+
+    RequestBodyReadTimeoutHandler(long timeout, TimeUnit unit) {
+        super(timeout, unit);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        boolean last = msg instanceof LastHttpContent;
+        super.channelRead(ctx, msg);
+        if (last && ctx.pipeline().context(this) != null) {
+            ctx.pipeline().remove(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.learnreactivespring.config;
+
+import com.learnreactivespring.resilience.ItemOperation;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("item.resilience")
+public class ResilienceProperties {
+
+    private boolean enabled = true;
+
+    private Duration defaultTimeout = Duration.ofSeconds(2);
+
+    // per operation, for streams this is the longest gap between two items
+    private Map<ItemOperation, Duration> timeouts = new EnumMap<>(ItemOperation.class);
+
+    private Breaker breaker = new Breaker();
+
+    public Duration timeout(ItemOperation operation) {
+        return timeouts.getOrDefault(operation, defaultTimeout);
+    }
+
+    @Data
+    public static class Breaker {
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenCalls = 5;
+    }
+}
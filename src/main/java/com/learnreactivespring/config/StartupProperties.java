@@ -0,0 +1,20 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.startup")
+public class StartupProperties {
+
+    // build secondary indexes after the app is up instead of during context refresh
+    private boolean backgroundIndexes = true;
+
+    // how long to keep retrying the Mongo ping that gates readiness
+    private Duration mongoCheckTimeout = Duration.ofSeconds(30);
+
+    // used by the AppCDS training run to exit as soon as the app has started
+    private boolean exitAfterReady = false;
+}
@@ -0,0 +1,24 @@
+package com.learnreactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("item.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = false;
+
+    // roughly where C2 has compiled the routing and codec hot paths
+    private int requestsPerRoute = 5000;
+
+    private int concurrency = 8;
+
+    // page size for the list routes, so warmup exercises the codecs without reading the whole collection
+    private int listLimit = 10;
+
+    // readiness is released after this even if the threshold was not reached
+    private Duration maxDuration = Duration.ofSeconds(60);
+}
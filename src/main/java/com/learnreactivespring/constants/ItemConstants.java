@@ -3,6 +3,10 @@ package com.learnreactivespring.constants;
 public class ItemConstants {
     public static final String ITEM_END_POINT = "/v1/items";
     public static final String ITEM_FUNCTIONAL_END_POINT_V1 = "/v1/fun/items";
+    public static final String ITEM_BULK_END_POINT = ITEM_END_POINT + "/bulk";
+    public static final String ITEM_PRICES_END_POINT = ITEM_END_POINT + "/prices";
+    public static final String ITEM_BULK_FUNCTIONAL_END_POINT_V1 = ITEM_FUNCTIONAL_END_POINT_V1 + "/bulk";
     public static final String ITEM_STREAM_END_POINT = "/v1/stream/items";
     public static final String ITEM_STREAM_FUNCTIONAL_END_POINT = "/v1/fun/stream/items";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 }
@@ -1,32 +1,72 @@
 package com.learnreactivespring.controller.v1;
 
+import com.learnreactivespring.codec.ItemArrayReader;
 import com.learnreactivespring.document.Item;
-import com.learnreactivespring.repository.ItemReactiveRepository;
+import com.learnreactivespring.enrichment.EnrichedItem;
+import com.learnreactivespring.enrichment.ItemEnrichmentPipeline;
+import com.learnreactivespring.exception.ErrorCode;
+import com.learnreactivespring.exception.ItemServiceException;
+import com.learnreactivespring.idempotency.IdempotencyStore;
+import com.learnreactivespring.service.ItemService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static com.learnreactivespring.constants.ItemConstants.IDEMPOTENCY_KEY_HEADER;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_BULK_END_POINT;
 import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.service.ReadEndpoint.ITEMS_LIST;
+import static com.learnreactivespring.service.ReadEndpoint.ITEMS_ONE;
 
 @RestController
 @Slf4j
 public class ItemController {
 
     @Autowired
-    ItemReactiveRepository itemReactiveRepository;
+    ItemService itemService;
+
+    @Autowired
+    ItemEnrichmentPipeline itemEnrichmentPipeline;
+
+    @Autowired
+    ItemArrayReader itemArrayReader;
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
 
     @GetMapping(ITEM_END_POINT)
     public Flux<Item> getAllItem() {
-        return itemReactiveRepository.findAll();
+        return itemService.findAll(ITEMS_LIST);
+    }
+
+    @GetMapping(value = ITEM_END_POINT, params = {"limit", "enrich!=true"})
+    public Flux<Item> getAllItemLimited(@RequestParam int limit) {
+        if (limit <= 0) {
+            return Flux.error(new ItemServiceException(ErrorCode.BAD_REQUEST, "limit must be a positive number"));
+        }
+        return itemService.findAll(ITEMS_LIST, limit);
+    }
+
+    @GetMapping(value = ITEM_END_POINT, params = "enrich=true")
+    public Flux<EnrichedItem> getAllItemEnriched(@RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return itemEnrichmentPipeline.enrich(itemService.findAll(ITEMS_LIST));
+        }
+        if (limit <= 0) {
+            return Flux.error(new ItemServiceException(ErrorCode.BAD_REQUEST, "limit must be a positive number"));
+        }
+        return itemEnrichmentPipeline.enrich(itemService.findAll(ITEMS_LIST, limit));
     }
 
     @GetMapping(ITEM_END_POINT + "/{id}")
     public Mono<ResponseEntity<Item>> getOneItem(@PathVariable String id) {
-        return itemReactiveRepository.findById(id)
+        return itemService.findById(id, ITEMS_ONE)
                 .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
                 .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
@@ -34,29 +74,33 @@ public class ItemController {
     @GetMapping(ITEM_END_POINT + "/runtimeException")
     public Flux<Item> runtimeException() {
 
-        return itemReactiveRepository.findAll()
+        return itemService.findAll(ITEMS_LIST)
                 .concatWith(Mono.error(new RuntimeException("Runtime Exception occurred")));
     }
 
     @PostMapping(ITEM_END_POINT)
     @ResponseStatus(HttpStatus.CREATED)
-    public Mono<Item> createItem(@RequestBody Item item) {
-        return itemReactiveRepository.save(item);
+    public Mono<Item> createItem(@RequestBody Item item,
+                                 @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, item, () -> itemService.save(item));
+    }
+
+    // the body is decoded element by element rather than bound with @RequestBody, which would aggregate it
+    @RequestMapping(value = ITEM_BULK_END_POINT, method = {RequestMethod.POST, RequestMethod.PUT},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Item> saveItems(ServerHttpRequest request) {
+        return itemService.saveAll(itemArrayReader.read(request));
     }
 
     @DeleteMapping(ITEM_END_POINT + "/{id}")
     public Mono<Void> deleteItem(@PathVariable String id) {
-        return itemReactiveRepository.deleteById(id);
+        return itemService.deleteById(id);
     }
 
     @PutMapping(ITEM_END_POINT + "/{id}")
     public Mono<ResponseEntity<Item>> updateItem(@RequestBody Item item, @PathVariable String id) {
-        return itemReactiveRepository.findById(id)
-                .flatMap(currentItem -> {
-                    currentItem.setPrice(item.getPrice());
-                    currentItem.setDescription(item.getDescription());
-                    return itemReactiveRepository.save(currentItem);
-                }).map(updateItem -> new ResponseEntity<>(updateItem, HttpStatus.OK))
+        return itemService.update(id, item)
+                .map(updateItem -> new ResponseEntity<>(updateItem, HttpStatus.OK))
                 .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 }
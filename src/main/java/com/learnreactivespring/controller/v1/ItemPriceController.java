@@ -0,0 +1,46 @@
+package com.learnreactivespring.controller.v1;
+
+import com.learnreactivespring.analytics.PriceEntry;
+import com.learnreactivespring.analytics.PriceIndex;
+import com.learnreactivespring.analytics.PriceRangeCount;
+import com.learnreactivespring.config.PriceIndexProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_PRICES_END_POINT;
+
+/**
+ * Price analytics served from the in-memory {@link PriceIndex}, results can trail writes by
+ * item.price-index.refresh-interval.
+ */
+@RestController
+@ConditionalOnProperty("item.price-index.enabled")
+public class ItemPriceController {
+
+    @Autowired
+    PriceIndex priceIndex;
+
+    @Autowired
+    PriceIndexProperties priceIndexProperties;
+
+    @GetMapping(ITEM_PRICES_END_POINT)
+    public Mono<PriceRangeCount> countByPrice(@RequestParam(defaultValue = "-Infinity") double min,
+                                              @RequestParam(defaultValue = "Infinity") double max) {
+        return Mono.just(new PriceRangeCount(min, max, priceIndex.count(min, max)));
+    }
+
+    @GetMapping(ITEM_PRICES_END_POINT + "/cheapest")
+    public Flux<PriceEntry> cheapest(@RequestParam(defaultValue = "10") int limit) {
+        return Flux.fromIterable(priceIndex.cheapest(Math.min(limit, priceIndexProperties.getMaxResults())));
+    }
+
+    @GetMapping(ITEM_PRICES_END_POINT + "/most-expensive")
+    public Flux<PriceEntry> mostExpensive(@RequestParam(defaultValue = "10") int limit) {
+        return Flux.fromIterable(priceIndex.mostExpensive(Math.min(limit, priceIndexProperties.getMaxResults())));
+    }
+}
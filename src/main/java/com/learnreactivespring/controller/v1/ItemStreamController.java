@@ -2,6 +2,7 @@ package com.learnreactivespring.controller.v1;
 
 import com.learnreactivespring.document.ItemCapped;
 import com.learnreactivespring.repository.ItemReactiveCappedRepository;
+import com.learnreactivespring.stream.Conflation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,4 +22,9 @@ public class ItemStreamController {
         return itemReactiveCappedRepository.findItemsBy();
     }
 
+    @GetMapping(value = ITEM_STREAM_END_POINT, params = "conflate=true", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<ItemCapped> getItemsStreamConflated() {
+        return Conflation.latestByKey(itemReactiveCappedRepository.findItemsBy(), ItemCapped::getDescription);
+    }
+
 }
@@ -0,0 +1,27 @@
+package com.learnreactivespring.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * The outcome of a create sent with an idempotency key. The response is null while the create is
+ * in progress, during which lockedUntil bounds how long the key is held; Mongo removes the record
+ * once it expires.
+ */
+@Document
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    private String key;
+    private String requestDigest;
+    private Item response;
+    private Date lockedUntil;
+    private Date expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.learnreactivespring.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An item written by one instance, for the others to evict from their caches. Heartbeats carry no itemId.
+ */
+@Document
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemInvalidation {
+    @Id
+    private String id;
+    private String itemId;
+    private String origin;
+    private long timestamp;
+}
@@ -0,0 +1,35 @@
+package com.learnreactivespring.enrichment;
+
+import com.learnreactivespring.config.EnrichmentProperties;
+import com.learnreactivespring.document.Item;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class CurrencyConversionEnricher implements ItemEnricher {
+
+    private final EnrichmentProperties properties;
+
+    public CurrencyConversionEnricher(EnrichmentProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String name() {
+        return "prices";
+    }
+
+    @Override
+    public Mono<Object> enrich(Item item) {
+        if (item.getPrice() == null || properties.getCurrencyRates().isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, Double> prices = new LinkedHashMap<>();
+        properties.getCurrencyRates().forEach((currency, rate) ->
+                prices.put(currency, Math.round(item.getPrice() * rate * 100) / 100.0));
+        return Mono.just(prices);
+    }
+}
@@ -0,0 +1,19 @@
+package com.learnreactivespring.enrichment;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.learnreactivespring.document.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrichedItem {
+
+    @JsonUnwrapped
+    private Item item;
+    private Map<String, Object> enrichments;
+}
@@ -0,0 +1,25 @@
+package com.learnreactivespring.enrichment;
+
+import com.learnreactivespring.document.Item;
+import reactor.core.publisher.Mono;
+
+public interface ItemEnricher {
+
+    String name();
+
+    Mono<Object> enrich(Item item);
+
+    /**
+     * Used when {@link #enrich(Item)} fails or times out; null leaves the value out.
+     */
+    default Object fallback(Item item) {
+        return null;
+    }
+
+    /**
+     * Blocking enrichers run on the offload scheduler, the rest on the parallel scheduler.
+     */
+    default boolean blocking() {
+        return false;
+    }
+}
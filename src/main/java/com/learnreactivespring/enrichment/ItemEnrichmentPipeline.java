@@ -0,0 +1,75 @@
+package com.learnreactivespring.enrichment;
+
+import com.learnreactivespring.config.EnrichmentProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.scheduler.BlockingOffload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs every {@link ItemEnricher} against each item in parallel while keeping the items,
+ * and the enrichments within an item, in their original order.
+ */
+@Component
+@Slf4j
+public class ItemEnrichmentPipeline {
+
+    private final List<ItemEnricher> enrichers;
+    private final EnrichmentProperties properties;
+    private final BlockingOffload blockingOffload;
+    private final Map<String, Timer> latencies;
+    private final Map<String, Counter> fallbacks;
+
+    public ItemEnrichmentPipeline(List<ItemEnricher> enrichers, EnrichmentProperties properties,
+                                  BlockingOffload blockingOffload, MeterRegistry meterRegistry) {
+        this.enrichers = enrichers;
+        this.properties = properties;
+        this.blockingOffload = blockingOffload;
+        this.latencies = enrichers.stream().collect(Collectors.toMap(ItemEnricher::name,
+                enricher -> meterRegistry.timer("item.enrichment.duration", "enricher", enricher.name())));
+        this.fallbacks = enrichers.stream().collect(Collectors.toMap(ItemEnricher::name,
+                enricher -> meterRegistry.counter("item.enrichment.fallback", "enricher", enricher.name())));
+    }
+
+    public Flux<EnrichedItem> enrich(Flux<Item> items) {
+        return items.flatMapSequential(this::enrich, properties.getConcurrency(), properties.getPrefetch());
+    }
+
+    public Mono<EnrichedItem> enrich(Item item) {
+        return Flux.fromIterable(enrichers)
+                .flatMapSequential(enricher -> run(enricher, item).map(value -> Tuples.of(enricher.name(), value)))
+                .collect(LinkedHashMap<String, Object>::new, (map, entry) -> map.put(entry.getT1(), entry.getT2()))
+                .map(enrichments -> new EnrichedItem(item, enrichments));
+    }
+
+    private Mono<Object> run(ItemEnricher enricher, Item item) {
+        Scheduler scheduler = enricher.blocking() ? blockingOffload.scheduler() : Schedulers.parallel();
+        Timer latency = latencies.get(enricher.name());
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return enricher.enrich(item)
+                    .doFinally(signal -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        })
+                .subscribeOn(scheduler)
+                .timeout(properties.getTimeout())
+                .onErrorResume(e -> {
+                    log.debug("Enricher {} failed for item {}", enricher.name(), item.getId(), e);
+                    fallbacks.get(enricher.name()).increment();
+                    return Mono.justOrEmpty(enricher.fallback(item));
+                });
+    }
+}
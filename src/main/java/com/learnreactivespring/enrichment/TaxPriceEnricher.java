@@ -0,0 +1,29 @@
+package com.learnreactivespring.enrichment;
+
+import com.learnreactivespring.config.EnrichmentProperties;
+import com.learnreactivespring.document.Item;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class TaxPriceEnricher implements ItemEnricher {
+
+    private final EnrichmentProperties properties;
+
+    public TaxPriceEnricher(EnrichmentProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String name() {
+        return "taxedPrice";
+    }
+
+    @Override
+    public Mono<Object> enrich(Item item) {
+        if (item.getPrice() == null) {
+            return Mono.empty();
+        }
+        return Mono.just(Math.round(item.getPrice() * (1 + properties.getTaxRate()) * 100) / 100.0);
+    }
+}
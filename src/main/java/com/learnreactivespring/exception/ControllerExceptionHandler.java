@@ -1,24 +1,36 @@
 package com.learnreactivespring.exception;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
-@Slf4j
 public class ControllerExceptionHandler {
 
+    @Autowired
+    ErrorRenderer errorRenderer;
+
+    @Autowired
+    ErrorLogSampler errorLogSampler;
+
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
-        log.error("Exception caught in handleRuntimeException :{}", ex);
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
+    public ResponseEntity<byte[]> handleRuntimeException(RuntimeException ex) {
+        return respond(ex);
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<String> handleException(Exception ex) {
-        log.error("Exception caught in handleException :{}", ex);
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
+    public ResponseEntity<byte[]> handleException(Exception ex) {
+        return respond(ex);
+    }
+
+    private ResponseEntity<byte[]> respond(Exception ex) {
+        ErrorResponse response = errorRenderer.render(ex);
+        errorLogSampler.log(response, ex);
+        return ResponseEntity.status(response.getStatus())
+                .header(ErrorResponse.CODE_HEADER, response.getCode())
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(response.getBody());
     }
 }
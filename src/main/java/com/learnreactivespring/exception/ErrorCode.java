@@ -0,0 +1,58 @@
+package com.learnreactivespring.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Stable codes sent in the {@link ErrorResponse#CODE_HEADER} header, so clients can tell failures
+ * apart without parsing the body.
+ */
+public enum ErrorCode {
+
+    BAD_REQUEST(HttpStatus.BAD_REQUEST, "ITEM-400", "Bad request"),
+    NOT_FOUND(HttpStatus.NOT_FOUND, "ITEM-404", "Item not found"),
+    CONFLICT(HttpStatus.CONFLICT, "ITEM-409", "A request with this idempotency key is in progress"),
+    PAYLOAD_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "ITEM-413", "Payload too large"),
+    UNPROCESSABLE_ENTITY(HttpStatus.UNPROCESSABLE_ENTITY, "ITEM-422", "Idempotency key was used for a different request"),
+    SERVICE_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "ITEM-503", "Service temporarily unavailable"),
+    INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "ITEM-500", "Internal error");
+
+    private final HttpStatus status;
+    private final String code;
+    private final String defaultMessage;
+    private final ErrorResponse defaultResponse;
+
+    ErrorCode(HttpStatus status, String code, String defaultMessage) {
+        this.status = status;
+        this.code = code;
+        this.defaultMessage = defaultMessage;
+        this.defaultResponse = new ErrorResponse(status, this, defaultMessage);
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDefaultMessage() {
+        return defaultMessage;
+    }
+
+    /**
+     * Pre-encoded response with the default message, shared by every error of this code.
+     */
+    public ErrorResponse defaultResponse() {
+        return defaultResponse;
+    }
+
+    static ErrorCode forStatus(HttpStatus status) {
+        for (ErrorCode errorCode : values()) {
+            if (errorCode.status == status) {
+                return errorCode;
+            }
+        }
+        return status.is4xxClientError() ? BAD_REQUEST : INTERNAL_ERROR;
+    }
+}
@@ -0,0 +1,61 @@
+package com.learnreactivespring.exception;
+
+import com.learnreactivespring.config.ErrorLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate-limited error logging: one line per exception type per interval, with the number of
+ * occurrences suppressed since the last one. Only unexpected exceptions get a stack trace. Every
+ * error is still counted in item.errors by code.
+ */
+@Component
+@Slf4j
+public class ErrorLogSampler {
+
+    private final long intervalNanos;
+    private final Map<Class<?>, Window> windows = new ConcurrentHashMap<>();
+    private final Map<ErrorCode, Counter> counters = new EnumMap<>(ErrorCode.class);
+
+    public ErrorLogSampler(ErrorLogProperties properties, MeterRegistry meterRegistry) {
+        this.intervalNanos = properties.getInterval().toNanos();
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            counters.put(errorCode, meterRegistry.counter("item.errors", "code", errorCode.getCode()));
+        }
+    }
+
+    public void log(ErrorResponse response, Throwable ex) {
+        counters.get(response.getErrorCode()).increment();
+
+        Window window = windows.get(ex.getClass());
+        if (window == null) {
+            window = windows.computeIfAbsent(ex.getClass(), type -> new Window());
+        }
+        long now = System.nanoTime();
+        long next = window.nextLogNanos.get();
+        if (now - next < 0 || !window.nextLogNanos.compareAndSet(next, now + intervalNanos)) {
+            window.suppressed.increment();
+            return;
+        }
+        long suppressed = window.suppressed.sumThenReset();
+        if (ex instanceof ItemServiceException || response.getStatus().is4xxClientError()) {
+            log.warn("{} {}: {} ({} similar suppressed)", response.getCode(), ex.getClass().getSimpleName(), ex.getMessage(), suppressed);
+        } else {
+            log.error("{} {}: {} ({} similar suppressed)", response.getCode(), ex.getClass().getSimpleName(), ex.getMessage(), suppressed, ex);
+        }
+    }
+
+    private static final class Window {
+        // starts in the past so the first occurrence is always logged
+        final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime() - 1);
+        final LongAdder suppressed = new LongAdder();
+    }
+}
@@ -0,0 +1,43 @@
+package com.learnreactivespring.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps exceptions to {@link ErrorResponse}s for both the annotated and the functional stack,
+ * reusing pre-encoded responses wherever the body does not depend on the exception instance.
+ */
+@Component
+public class ErrorRenderer {
+
+    private final Map<HttpStatus, ErrorResponse> statusResponses = new ConcurrentHashMap<>();
+
+    public ErrorResponse render(Throwable ex) {
+        if (ex instanceof ItemServiceException) {
+            ItemServiceException itemServiceException = (ItemServiceException) ex;
+            ErrorCode errorCode = itemServiceException.getErrorCode();
+            String message = itemServiceException.getMessage();
+            return message == null || message.equals(errorCode.getDefaultMessage()) ?
+                    errorCode.defaultResponse() : new ErrorResponse(errorCode.getStatus(), errorCode, message);
+        }
+        if (ex instanceof ResponseStatusException) {
+            ResponseStatusException responseStatusException = (ResponseStatusException) ex;
+            HttpStatus status = responseStatusException.getStatus();
+            String reason = responseStatusException.getReason();
+            return reason == null ? statusResponses.computeIfAbsent(status, this::statusResponse) :
+                    new ErrorResponse(status, ErrorCode.forStatus(status), reason);
+        }
+        // unknown failures keep returning their message, as the item API always has
+        String message = ex.getMessage();
+        return message == null ? ErrorCode.INTERNAL_ERROR.defaultResponse() :
+                new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, ErrorCode.INTERNAL_ERROR, message);
+    }
+
+    private ErrorResponse statusResponse(HttpStatus status) {
+        return new ErrorResponse(status, ErrorCode.forStatus(status), status.getReasonPhrase());
+    }
+}
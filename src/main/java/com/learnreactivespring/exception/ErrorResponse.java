@@ -0,0 +1,41 @@
+package com.learnreactivespring.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Status, code and UTF-8 encoded body of an error response, encoded once so shared instances can
+ * be written without further allocation.
+ */
+public final class ErrorResponse {
+
+    public static final String CODE_HEADER = "X-Error-Code";
+
+    private final HttpStatus status;
+    private final ErrorCode errorCode;
+    private final byte[] body;
+
+    ErrorResponse(HttpStatus status, ErrorCode errorCode, String message) {
+        this.status = status;
+        this.errorCode = errorCode;
+        this.body = message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    public String getCode() {
+        return errorCode.getCode();
+    }
+
+    // shared, callers must not modify it
+    public byte[] getBody() {
+        return body;
+    }
+}
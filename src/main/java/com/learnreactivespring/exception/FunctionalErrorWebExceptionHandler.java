@@ -1,29 +1,33 @@
 package com.learnreactivespring.exception;
 
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.web.ResourceProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.reactive.error.ErrorAttributes;
 import org.springframework.context.ApplicationContext;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.*;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
-
-import static org.springframework.web.reactive.function.BodyInserters.fromObject;
+import static org.springframework.web.reactive.function.BodyInserters.fromDataBuffers;
 
 @Component
-@Slf4j
 public class FunctionalErrorWebExceptionHandler extends AbstractErrorWebExceptionHandler {
+
+    private final ErrorRenderer errorRenderer;
+    private final ErrorLogSampler errorLogSampler;
+
     public FunctionalErrorWebExceptionHandler(ErrorAttributes errorAttributes,
                                               ApplicationContext applicationContext,
-                                              ServerCodecConfigurer serverCodecConfigurer) {
+                                              ServerCodecConfigurer serverCodecConfigurer,
+                                              ErrorRenderer errorRenderer,
+                                              ErrorLogSampler errorLogSampler) {
         super(errorAttributes, new ResourceProperties(), applicationContext);
         super.setMessageWriters(serverCodecConfigurer.getWriters());
         super.setMessageReaders(serverCodecConfigurer.getReaders());
+        this.errorRenderer = errorRenderer;
+        this.errorLogSampler = errorLogSampler;
     }
 
     @Override
@@ -31,10 +35,20 @@ public class FunctionalErrorWebExceptionHandler extends AbstractErrorWebExceptio
         return RouterFunctions.route(RequestPredicates.all(), this::renderErrorResponse);
     }
 
+    // only the exception is needed, not the error attributes map with its stack trace walking
     private Mono<ServerResponse> renderErrorResponse(ServerRequest serverRequest) {
-        Map<String, Object> errorAttributesMap = getErrorAttributes(serverRequest, false);
-        log.info("errorAttributesMap :" + errorAttributesMap);
-        return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(fromObject(errorAttributesMap.get("message")));
+        Throwable error = getError(serverRequest);
+        ErrorResponse response = errorRenderer.render(error);
+        errorLogSampler.log(response, error);
+        return ServerResponse.status(response.getStatus())
+                .header(ErrorResponse.CODE_HEADER, response.getCode())
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(fromDataBuffers(Mono.fromSupplier(() ->
+                        serverRequest.exchange().getResponse().bufferFactory().wrap(response.getBody()))));
+    }
+
+    @Override
+    protected void logError(ServerRequest request, ServerResponse response, Throwable throwable) {
+        // already logged, sampled, by ErrorLogSampler
     }
 }
@@ -0,0 +1,25 @@
+package com.learnreactivespring.exception;
+
+/**
+ * Expected failure with a known {@link ErrorCode}. Stack traces are not captured: they are never
+ * logged for these, and filling them in dominates the cost of throwing under an error storm.
+ */
+public class ItemServiceException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ErrorCode errorCode;
+
+    public ItemServiceException(ErrorCode errorCode) {
+        this(errorCode, errorCode.getDefaultMessage());
+    }
+
+    public ItemServiceException(ErrorCode errorCode, String message) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,82 @@
+package com.learnreactivespring.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limiter: the limit grows by roughly one per window of fast responses
+ * and is cut multiplicatively when a response exceeds the latency threshold. Like TCP's once per
+ * round trip, only a request started after the last cut can cut again, so a burst of slow
+ * responses that were all in flight under the old limit counts as one congestion signal.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong lastCutNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdNanos, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(
+                Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+        this.lastCutNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @param share fraction of the current limit the caller's priority class may occupy
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (getLimit() * share));
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos when the request was admitted, from {@link System#nanoTime()}
+     * @param endNanos when it completed
+     */
+    public void release(long startNanos, long endNanos) {
+        inFlight.decrementAndGet();
+        boolean slow = endNanos - startNanos > latencyThresholdNanos;
+        if (slow) {
+            long lastCut = lastCutNanos.get();
+            if (startNanos - lastCut <= 0 || !lastCutNanos.compareAndSet(lastCut, endNanos)) {
+                return;
+            }
+        }
+        for (; ; ) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double next = slow
+                    ? Math.max(minLimit, limit * backoffRatio)
+                    : Math.min(maxLimit, limit + 1.0 / limit);
+            if (next == limit || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    public double getLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
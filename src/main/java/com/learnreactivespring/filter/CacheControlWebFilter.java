@@ -0,0 +1,97 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.HttpCacheProperties;
+import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds the configured Cache-Control policy to successful GET and HEAD responses, so clients and
+ * the CDN can reuse them. A Cache-Control header set by the handler is left alone.
+ */
+@Component
+public class CacheControlWebFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 30;
+
+    private final List<RoutePolicy> routePolicies = new ArrayList<>();
+
+    public CacheControlWebFilter(HttpCacheProperties properties) {
+        properties.getPolicies().forEach((path, policy) ->
+                routePolicies.add(new RoutePolicy(PathPatternParser.defaultInstance.parse(path), headerValue(policy))));
+        // most specific pattern wins
+        routePolicies.sort((a, b) -> PathPattern.SPECIFICITY_COMPARATOR.compare(a.pattern, b.pattern));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (routePolicies.isEmpty() || (method != HttpMethod.GET && method != HttpMethod.HEAD)) {
+            return chain.filter(exchange);
+        }
+        String value = lookup(exchange);
+        if (value != null) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                HttpStatus status = response.getStatusCode();
+                HttpHeaders headers = response.getHeaders();
+                if ((status == null || status.is2xxSuccessful()) && !headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
+                    headers.setCacheControl(value);
+                    // JSON and NDJSON bodies share the URL
+                    headers.setVary(List.of(HttpHeaders.ACCEPT));
+                }
+                return Mono.empty();
+            });
+        }
+        return chain.filter(exchange);
+    }
+
+    private String lookup(ServerWebExchange exchange) {
+        for (RoutePolicy routePolicy : routePolicies) {
+            if (routePolicy.pattern.matches(exchange.getRequest().getPath().pathWithinApplication())) {
+                return routePolicy.headerValue;
+            }
+        }
+        return null;
+    }
+
+    private static String headerValue(HttpCacheProperties.Policy policy) {
+        CacheControl cacheControl = CacheControl.maxAge(policy.getMaxAge());
+        if (policy.getStaleWhileRevalidate() != null) {
+            cacheControl = cacheControl.staleWhileRevalidate(policy.getStaleWhileRevalidate());
+        }
+        if (policy.getStaleIfError() != null) {
+            cacheControl = cacheControl.staleIfError(policy.getStaleIfError());
+        }
+        return (policy.isCachePrivate() ? cacheControl.cachePrivate() : cacheControl.cachePublic()).getHeaderValue();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static final class RoutePolicy {
+
+        private final PathPattern pattern;
+        private final String headerValue;
+
+        private RoutePolicy(PathPattern pattern, String headerValue) {
+            this.pattern = pattern;
+            this.headerValue = headerValue;
+        }
+    }
+}
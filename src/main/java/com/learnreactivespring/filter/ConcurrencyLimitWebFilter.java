@@ -0,0 +1,131 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sheds load on the item routes once the adaptive limit of in-flight requests is reached.
+ * Applies to both the annotated controllers and the functional routes.
+ */
+@Component
+public class ConcurrencyLimitWebFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 20;
+
+    private final ConcurrencyLimitProperties properties;
+    private final List<RouteLimiter> routeLimiters = new ArrayList<>();
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitWebFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, properties.getRetryAfter().getSeconds()));
+        properties.getRoutes().forEach((prefix, limit) -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit.getInitialLimit(),
+                    limit.getMinLimit(), limit.getMaxLimit(), properties.getLatencyThreshold().toNanos(),
+                    properties.getBackoffRatio());
+            Gauge.builder("item.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("route", prefix).register(meterRegistry);
+            Gauge.builder("item.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("route", prefix).register(meterRegistry);
+            routeLimiters.add(new RouteLimiter(prefix, limiter,
+                    meterRegistry.counter("item.concurrency.rejected", "route", prefix, "priority", "read"),
+                    meterRegistry.counter("item.concurrency.rejected", "route", prefix, "priority", "write")));
+        });
+        // longest prefix wins
+        routeLimiters.sort(Comparator.comparingInt((RouteLimiter r) -> r.prefix.length()).reversed());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        RouteLimiter route = lookup(exchange.getRequest().getPath().pathWithinApplication().value());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        boolean read = isRead(exchange.getRequest().getMethod());
+        if (!route.limiter.tryAcquire(read ? 1.0 : properties.getWriteShare())) {
+            (read ? route.rejectedReads : route.rejectedWrites).increment();
+            return reject(exchange.getResponse());
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signalType -> route.limiter.release(start, System.nanoTime()));
+    }
+
+    /**
+     * Runs work a request starts beyond its own response, such as a background refresh, under the
+     * route's limit as a read. Completes empty without running it while the route is saturated.
+     */
+    public <T> Mono<T> admit(String path, Mono<T> work) {
+        RouteLimiter route = properties.isEnabled() ? lookup(path) : null;
+        if (route == null) {
+            return work;
+        }
+        return Mono.defer(() -> {
+            if (!route.limiter.tryAcquire(1.0)) {
+                route.rejectedReads.increment();
+                return Mono.empty();
+            }
+            long start = System.nanoTime();
+            return work.doFinally(signalType -> route.limiter.release(start, System.nanoTime()));
+        });
+    }
+
+    private RouteLimiter lookup(String path) {
+        for (RouteLimiter routeLimiter : routeLimiters) {
+            if (path.startsWith(routeLimiter.prefix)) {
+                return routeLimiter;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRead(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        return response.setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static class RouteLimiter {
+        final String prefix;
+        final AdaptiveConcurrencyLimiter limiter;
+        final Counter rejectedReads;
+        final Counter rejectedWrites;
+
+        RouteLimiter(String prefix, AdaptiveConcurrencyLimiter limiter, Counter rejectedReads, Counter rejectedWrites) {
+            this.prefix = prefix;
+            this.limiter = limiter;
+            this.rejectedReads = rejectedReads;
+            this.rejectedWrites = rejectedWrites;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.ResilienceProperties;
+import com.learnreactivespring.resilience.ItemStoreResilience;
+import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Marks successful responses that {@link ItemStoreResilience} answered from its fallback with a
+ * stale Warning and no-store, so neither clients nor the response caches keep them. Runs ahead of
+ * {@link CacheControlWebFilter} so the route's cache policy does not replace the no-store.
+ */
+@Component
+public class DegradedResponseWebFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 25;
+
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private final ResilienceProperties properties;
+
+    public DegradedResponseWebFilter(ResilienceProperties properties) {
+        this.properties = properties;
+    }
+
+    public static boolean isDegraded(ServerWebExchange exchange) {
+        AtomicBoolean degraded = exchange.getAttribute(ItemStoreResilience.DEGRADED_CONTEXT_KEY);
+        return degraded != null && degraded.get();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        AtomicBoolean degraded = new AtomicBoolean();
+        exchange.getAttributes().put(ItemStoreResilience.DEGRADED_CONTEXT_KEY, degraded);
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            HttpStatus status = response.getStatusCode();
+            if (degraded.get() && (status == null || status.is2xxSuccessful())) {
+                HttpHeaders headers = response.getHeaders();
+                headers.set(HttpHeaders.WARNING, STALE_WARNING);
+                headers.setCacheControl(CacheControl.noStore());
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange).contextWrite(Context.of(ItemStoreResilience.DEGRADED_CONTEXT_KEY, degraded));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
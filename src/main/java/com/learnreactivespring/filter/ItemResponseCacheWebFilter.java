@@ -0,0 +1,142 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.cache.EncodedItemCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
+
+/**
+ * Answers get-by-id on both stacks from the {@link EncodedItemCache}, so a hit costs neither a
+ * read nor serialization. Misses go to the handler and the body it writes is stored, provided the
+ * request was routed to a get-by-id handler and its content type is the one the Accept header
+ * resolves to.
+ */
+@Component
+public class ItemResponseCacheWebFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 50;
+
+    @SuppressWarnings("deprecation")
+    private static final List<MediaType> MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON);
+
+    private static final List<PathPattern> PATTERNS = List.of(
+            PathPatternParser.defaultInstance.parse(ITEM_END_POINT + "/{id}"),
+            PathPatternParser.defaultInstance.parse(ITEM_FUNCTIONAL_END_POINT_V1 + "/{id}"));
+
+    private final EncodedItemCache encodedItemCache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ItemResponseCacheWebFilter(EncodedItemCache encodedItemCache, MeterRegistry meterRegistry) {
+        this.encodedItemCache = encodedItemCache;
+        this.hits = meterRegistry.counter("item.cache.encoded", "result", "hit");
+        this.misses = meterRegistry.counter("item.cache.encoded", "result", "miss");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!encodedItemCache.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        PathPattern.PathMatchInfo match = match(request);
+        MediaType mediaType = match == null ? null : mediaType(request.getHeaders().getAccept());
+        if (mediaType == null) {
+            return chain.filter(exchange);
+        }
+
+        String id = match.getUriVariables().get("id");
+        ByteBuffer body = encodedItemCache.get(id, mediaType);
+        if (body != null) {
+            hits.increment();
+            return write(exchange.getResponse(), mediaType, body);
+        }
+        misses.increment();
+        long version = encodedItemCache.version();
+        return chain.filter(exchange.mutate().response(new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!isCacheable(exchange, getStatusCode(), getHeaders().getContentType(), mediaType)) {
+                    return super.writeWith(body);
+                }
+                return super.writeWith(DataBufferUtils.join(body).doOnNext(buffer ->
+                        encodedItemCache.put(id, mediaType, ListResponseCacheWebFilter.bytes(buffer), version)));
+            }
+        }).build());
+    }
+
+    private static PathPattern.PathMatchInfo match(ServerHttpRequest request) {
+        for (PathPattern pattern : PATTERNS) {
+            PathPattern.PathMatchInfo match = pattern.matchAndExtract(request.getPath().pathWithinApplication());
+            if (match != null) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    // the media type the handler would answer with, or null if it is not one the cache keeps
+    private static MediaType mediaType(List<MediaType> accept) {
+        if (accept.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(accept);
+        for (MediaType accepted : accept) {
+            if (accepted.isWildcardSubtype() && accepted.includes(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            for (MediaType mediaType : MEDIA_TYPES) {
+                if (mediaType.equalsTypeAndSubtype(accepted)) {
+                    return mediaType;
+                }
+            }
+        }
+        return null;
+    }
+
+    // /v1/items/prices and the like match the id pattern too, so only keep what a get-by-id route produced
+    private static boolean isCacheable(ServerWebExchange exchange, HttpStatus status, MediaType contentType, MediaType mediaType) {
+        PathPattern handled = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return (status == null || status == HttpStatus.OK) && !DegradedResponseWebFilter.isDegraded(exchange)
+                && contentType != null && mediaType.equalsTypeAndSubtype(contentType)
+                && handled != null && PATTERNS.stream().anyMatch(pattern -> pattern.getPatternString().equals(handled.getPatternString()));
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, MediaType mediaType, ByteBuffer body) {
+        response.setStatusCode(HttpStatus.OK);
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(mediaType);
+        headers.setContentLength(body.remaining());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
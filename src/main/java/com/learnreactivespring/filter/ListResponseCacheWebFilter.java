@@ -0,0 +1,256 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.HttpCacheProperties;
+import com.learnreactivespring.resilience.ItemStoreResilience;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side cache for the list endpoints. Successful responses are kept as encoded bytes keyed by
+ * path, query parameters and Accept, and written straight back while fresh. A stale entry is still
+ * served while one background request refreshes it, and past that for as long as refreshing fails.
+ * Background refreshes take a permit from {@link ConcurrencyLimitWebFilter} like any other read.
+ * Streamed responses and responses answered from the store fallback are not cached.
+ * <p>
+ * Only stored responses take an entry. Once max-entries is reached, storing a new key first drops
+ * the expired entries and then the least recently used one.
+ */
+@Component
+@Slf4j
+public class ListResponseCacheWebFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 40;
+
+    private final HttpCacheProperties.ListCache properties;
+    private final ConcurrencyLimitWebFilter concurrencyLimitWebFilter;
+    private final List<PathPattern> patterns;
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final long staleWhileRevalidateNanos;
+    private final long staleIfErrorNanos;
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter staleErrors;
+    private final Counter misses;
+
+    public ListResponseCacheWebFilter(HttpCacheProperties properties, ConcurrencyLimitWebFilter concurrencyLimitWebFilter,
+                                      MeterRegistry meterRegistry) {
+        this.properties = properties.getListCache();
+        this.concurrencyLimitWebFilter = concurrencyLimitWebFilter;
+        this.patterns = this.properties.getPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .collect(Collectors.toList());
+        this.ttlNanos = this.properties.getTtl().toNanos();
+        this.staleWhileRevalidateNanos = ttlNanos + this.properties.getStaleWhileRevalidate().toNanos();
+        this.staleIfErrorNanos = ttlNanos + this.properties.getStaleIfError().toNanos();
+        this.hits = meterRegistry.counter("item.http-cache.list", "result", "hit");
+        this.staleHits = meterRegistry.counter("item.http-cache.list", "result", "stale");
+        this.staleErrors = meterRegistry.counter("item.http-cache.list", "result", "stale-if-error");
+        this.misses = meterRegistry.counter("item.http-cache.list", "result", "miss");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || request.getMethod() != HttpMethod.GET || !isCached(request)) {
+            return chain.filter(exchange);
+        }
+        String key = key(request);
+        Slot slot = slots.get(key);
+        Entry entry = slot == null ? null : slot.entry;
+        if (entry == null || noCache(request)) {
+            misses.increment();
+            return chain.filter(capturing(exchange, key));
+        }
+        long now = System.nanoTime();
+        slot.lastUsed = now;
+        long age = now - entry.created;
+        if (age < ttlNanos) {
+            hits.increment();
+            return write(exchange.getResponse(), entry);
+        }
+        if (age < staleWhileRevalidateNanos) {
+            staleHits.increment();
+            refreshInBackground(exchange, chain, key, slot);
+            return write(exchange.getResponse(), entry);
+        }
+        if (age < staleIfErrorNanos) {
+            return load(exchange, chain, key)
+                    .onErrorResume(e -> {
+                        staleErrors.increment();
+                        log.debug("Refreshing {} failed, serving the stale response", key, e);
+                        return Mono.just(entry);
+                    })
+                    .flatMap(served -> write(exchange.getResponse(), served));
+        }
+        misses.increment();
+        return chain.filter(capturing(exchange, key));
+    }
+
+    private boolean isCached(ServerHttpRequest request) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(request.getPath().pathWithinApplication())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(request.getPath().pathWithinApplication().value());
+        new TreeMap<>(request.getQueryParams()).forEach((name, values) ->
+                key.append('&').append(name).append('=').append(String.join(",", values)));
+        return key.append('|').append(String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT))).toString();
+    }
+
+    private static boolean noCache(ServerHttpRequest request) {
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null && cacheControl.contains("no-cache");
+    }
+
+    // runs the request against the real response and keeps the body on the way out
+    private ServerWebExchange capturing(ServerWebExchange exchange, String key) {
+        return exchange.mutate().response(new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!isCacheable(getStatusCode()) || DegradedResponseWebFilter.isDegraded(exchange)) {
+                    return super.writeWith(body);
+                }
+                MediaType contentType = getHeaders().getContentType();
+                return super.writeWith(DataBufferUtils.join(body)
+                        .doOnNext(buffer -> store(key, new Entry(bytes(buffer), contentType))));
+            }
+        }).build();
+    }
+
+    private void refreshInBackground(ServerWebExchange exchange, WebFilterChain chain, String key, Slot slot) {
+        if (slot.refreshing.compareAndSet(false, true)) {
+            concurrencyLimitWebFilter.admit(exchange.getRequest().getPath().pathWithinApplication().value(),
+                            load(exchange, chain, key))
+                    .doFinally(signalType -> slot.refreshing.set(false))
+                    .subscribe(null, e -> log.warn("Refreshing cached response {} failed", key, e));
+        }
+    }
+
+    private Mono<Entry> load(ServerWebExchange exchange, WebFilterChain chain, String key) {
+        CapturedResponse response = new CapturedResponse(exchange.getResponse().bufferFactory());
+        // background refreshes run outside the request's context, so they carry their own flag
+        AtomicBoolean degraded = new AtomicBoolean();
+        return chain.filter(exchange.mutate().response(response).build())
+                .contextWrite(Context.of(ItemStoreResilience.DEGRADED_CONTEXT_KEY, degraded))
+                .then(Mono.fromCallable(() -> {
+                    if (!isCacheable(response.getStatusCode()) || response.getBody() == null) {
+                        throw new IllegalStateException("Refreshing " + key + " returned " + response.getStatusCode());
+                    }
+                    if (degraded.get()) {
+                        throw new IllegalStateException("Refreshing " + key + " was answered from the store fallback");
+                    }
+                    Entry entry = new Entry(response.getBody(), response.getHeaders().getContentType());
+                    store(key, entry);
+                    return entry;
+                }));
+    }
+
+    private void store(String key, Entry entry) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            if (slots.size() >= properties.getMaxEntries()) {
+                evict();
+            }
+            // racing stores of new keys may overshoot max-entries by a few until the next eviction
+            slot = slots.computeIfAbsent(key, k -> new Slot());
+        }
+        slot.entry = entry;
+        slot.lastUsed = entry.created;
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        String leastRecentlyUsed = null;
+        Slot leastRecentlyUsedSlot = null;
+        for (Map.Entry<String, Slot> candidate : slots.entrySet()) {
+            Slot slot = candidate.getValue();
+            Entry entry = slot.entry;
+            if (entry == null || now - entry.created >= staleIfErrorNanos) {
+                slots.remove(candidate.getKey(), slot);
+            } else if (leastRecentlyUsedSlot == null || slot.lastUsed - leastRecentlyUsedSlot.lastUsed < 0) {
+                leastRecentlyUsed = candidate.getKey();
+                leastRecentlyUsedSlot = slot;
+            }
+        }
+        if (slots.size() >= properties.getMaxEntries() && leastRecentlyUsed != null) {
+            slots.remove(leastRecentlyUsed, leastRecentlyUsedSlot);
+        }
+    }
+
+    private static boolean isCacheable(HttpStatus status) {
+        return status == null || status == HttpStatus.OK;
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, Entry entry) {
+        response.setStatusCode(HttpStatus.OK);
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(entry.contentType);
+        headers.setContentLength(entry.body.length);
+        headers.set(HttpHeaders.AGE, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - entry.created)));
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(entry.body)));
+    }
+
+    static byte[] bytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.asByteBuffer().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static final class Slot {
+
+        private volatile Entry entry;
+        private volatile long lastUsed;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+    }
+
+    private static final class Entry {
+
+        private final byte[] body;
+        private final MediaType contentType;
+        private final long created = System.nanoTime();
+
+        private Entry(byte[] body, MediaType contentType) {
+            this.body = body;
+            this.contentType = contentType;
+        }
+    }
+}
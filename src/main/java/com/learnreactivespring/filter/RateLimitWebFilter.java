@@ -0,0 +1,166 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token bucket rate limiting keyed by API key header, falling back to the remote address.
+ * Runs ahead of {@link ConcurrencyLimitWebFilter} so throttled clients never take a concurrency permit.
+ */
+@Component
+@Slf4j
+public class RateLimitWebFilter implements WebFilter, Ordered, DisposableBean {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    // set by earlier filters for internal traffic that must not draw from client buckets
+    public static final String EXEMPT_ATTRIBUTE = RateLimitWebFilter.class.getName() + ".EXEMPT";
+
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private static final Object UNKNOWN_CLIENT = new Object();
+
+    private final RateLimitProperties properties;
+    // API keys as strings, anonymous clients by InetAddress, so keying allocates nothing
+    private final ConcurrentHashMap<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long idleNanos;
+    // new clients are hashed onto these while the key map is full, so the map stays bounded under
+    // key churn and a client rotating keys can't drain the budget of every other new client
+    private final TokenBucket[] overflowBuckets;
+    private final String limitValue;
+    private final String[] smallNumbers;
+    private final Disposable sweeper;
+
+    public RateLimitWebFilter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.emissionIntervalNanos = TimeUnit.SECONDS.toNanos(1) / properties.getRefillPerSecond();
+        this.idleNanos = properties.getIdleTimeout().toNanos();
+        this.overflowBuckets = new TokenBucket[Math.max(1, properties.getOverflowBuckets())];
+        long now = System.nanoTime();
+        for (int i = 0; i < overflowBuckets.length; i++) {
+            overflowBuckets[i] = new TokenBucket(properties.getCapacity(), emissionIntervalNanos, now);
+        }
+        this.limitValue = String.valueOf(properties.getCapacity());
+        this.smallNumbers = new String[(int) Math.min(properties.getCapacity(), 10_000) + 1];
+        for (int i = 0; i < smallNumbers.length; i++) {
+            smallNumbers[i] = String.valueOf(i);
+        }
+        long sweepMillis = properties.getSweepInterval().toMillis();
+        this.sweeper = Schedulers.parallel()
+                .schedulePeriodically(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || exchange.getAttribute(EXEMPT_ATTRIBUTE) != null
+                || !isLimited(request.getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket = bucketFor(clientKey(request), now);
+        long result = bucket.tryTake(now);
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(LIMIT_HEADER, limitValue);
+        if (result < 0) {
+            String retryAfter = seconds(-result);
+            headers.set(REMAINING_HEADER, smallNumbers[0]);
+            headers.set(RESET_HEADER, retryAfter);
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return response.setComplete();
+        }
+        headers.set(REMAINING_HEADER, number(result));
+        headers.set(RESET_HEADER, seconds(bucket.nanosUntilFull(now)));
+        return chain.filter(exchange);
+    }
+
+    private boolean isLimited(String path) {
+        for (String prefix : properties.getPaths()) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object clientKey(ServerHttpRequest request) {
+        String apiKey = request.getHeaders().getFirst(properties.getKeyHeader());
+        if (apiKey != null) {
+            return apiKey;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return UNKNOWN_CLIENT;
+        }
+        return remoteAddress.getAddress();
+    }
+
+    private TokenBucket bucketFor(Object key, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        // idle keys are only evicted by the sweeper, so key churn cannot turn into scans on the event loop
+        if (buckets.size() >= properties.getMaxKeys()) {
+            return overflowBuckets[overflowSlot(key, overflowBuckets.length)];
+        }
+        return buckets.computeIfAbsent(key,
+                k -> new TokenBucket(properties.getCapacity(), emissionIntervalNanos, now));
+    }
+
+    static int overflowSlot(Object key, int slots) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), slots);
+    }
+
+    void evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+        }
+    }
+
+    private String seconds(long nanos) {
+        return number((nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private String number(long value) {
+        return value < smallNumbers.length ? smallNumbers[(int) value] : String.valueOf(value);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.dispose();
+    }
+}
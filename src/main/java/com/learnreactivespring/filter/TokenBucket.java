@@ -0,0 +1,46 @@
+package com.learnreactivespring.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket kept as a single "theoretical arrival time" (GCRA), so a
+ * take is one CAS on an {@link AtomicLong} with no allocation.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(long capacity, long emissionIntervalNanos, long now) {
+        this.emissionIntervalNanos = emissionIntervalNanos;
+        this.burstNanos = capacity * emissionIntervalNanos;
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * @return the tokens left after taking one, or, when the bucket is empty, the negated
+     * number of nanos until the next token becomes available
+     */
+    public long tryTake(long now) {
+        for (; ; ) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + emissionIntervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return -excess;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return (burstNanos - (next - now)) / emissionIntervalNanos;
+            }
+        }
+    }
+
+    public long nanosUntilFull(long now) {
+        return Math.max(0, theoreticalArrival.get() - now);
+    }
+
+    public boolean isIdle(long now, long idleNanos) {
+        return now - theoreticalArrival.get() > idleNanos;
+    }
+}
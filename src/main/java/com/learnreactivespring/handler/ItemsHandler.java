@@ -1,16 +1,27 @@
 package com.learnreactivespring.handler;
 
+import com.learnreactivespring.codec.ItemArrayReader;
 import com.learnreactivespring.document.Item;
 import com.learnreactivespring.document.ItemCapped;
+import com.learnreactivespring.enrichment.EnrichedItem;
+import com.learnreactivespring.enrichment.ItemEnrichmentPipeline;
+import com.learnreactivespring.exception.ErrorCode;
+import com.learnreactivespring.exception.ItemServiceException;
+import com.learnreactivespring.idempotency.IdempotencyStore;
 import com.learnreactivespring.repository.ItemReactiveCappedRepository;
-import com.learnreactivespring.repository.ItemReactiveRepository;
+import com.learnreactivespring.service.ItemService;
+import com.learnreactivespring.stream.Conflation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static com.learnreactivespring.constants.ItemConstants.IDEMPOTENCY_KEY_HEADER;
+import static com.learnreactivespring.service.ReadEndpoint.FUN_ITEMS_LIST;
+import static com.learnreactivespring.service.ReadEndpoint.FUN_ITEMS_ONE;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.web.reactive.function.BodyInserters.fromObject;
 
@@ -18,37 +29,77 @@ import static org.springframework.web.reactive.function.BodyInserters.fromObject
 public class ItemsHandler {
 
     @Autowired
-    ItemReactiveRepository itemReactiveRepository;
+    ItemService itemService;
 
     @Autowired
     ItemReactiveCappedRepository itemReactiveCappedRepository;
 
+    @Autowired
+    ItemEnrichmentPipeline itemEnrichmentPipeline;
+
+    @Autowired
+    ItemArrayReader itemArrayReader;
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
+
     private Mono<ServerResponse> notFound = ServerResponse.notFound().build();
 
     public Mono<ServerResponse> getAllItems(ServerRequest serverRequest) {
         return ServerResponse.ok()
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(itemReactiveRepository.findAll(), Item.class);
+                .body(findAll(serverRequest), Item.class);
 
     }
 
+    private Flux<Item> findAll(ServerRequest serverRequest) {
+        return serverRequest.queryParam("limit")
+                .map(limit -> parseLimit(limit).flatMapMany(value -> itemService.findAll(FUN_ITEMS_LIST, value)))
+                .orElseGet(() -> itemService.findAll(FUN_ITEMS_LIST));
+    }
+
+    private static Mono<Integer> parseLimit(String limit) {
+        try {
+            int value = Integer.parseInt(limit);
+            if (value > 0) {
+                return Mono.just(value);
+            }
+        } catch (NumberFormatException e) {
+            // rejected below
+        }
+        return Mono.error(new ItemServiceException(ErrorCode.BAD_REQUEST, "limit must be a positive number"));
+    }
+
+    public Mono<ServerResponse> getAllItemsEnriched(ServerRequest serverRequest) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(itemEnrichmentPipeline.enrich(findAll(serverRequest)), EnrichedItem.class);
+    }
+
     public Mono<ServerResponse> getOneItem(ServerRequest serverRequest) {
         String id = serverRequest.pathVariable("id");
 
-        Mono<Item> itemMono = itemReactiveRepository.findById(id);
+        Mono<Item> itemMono = itemService.findById(id, FUN_ITEMS_ONE);
         return itemMono.flatMap(item -> ServerResponse.ok().body(fromObject(item))).switchIfEmpty(notFound);
     }
 
     public Mono<ServerResponse> createItem(ServerRequest serverRequest) {
         Mono<Item> itemToBeInserted = serverRequest.bodyToMono(Item.class);
+        String idempotencyKey = serverRequest.headers().firstHeader(IDEMPOTENCY_KEY_HEADER);
         return itemToBeInserted.flatMap(item -> ServerResponse.status(CREATED)
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(itemReactiveRepository.save(item), Item.class));
+                .body(idempotencyStore.execute(idempotencyKey, item, () -> itemService.save(item)), Item.class));
+    }
+
+    public Mono<ServerResponse> saveItems(ServerRequest serverRequest) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(itemService.saveAll(itemArrayReader.read(serverRequest.exchange().getRequest())), Item.class);
     }
 
     public Mono<ServerResponse> deleteItem(ServerRequest serverRequest) {
         String id = serverRequest.pathVariable("id");
-        Mono<Void> voidMono = itemReactiveRepository.deleteById(id);
+        Mono<Void> voidMono = itemService.deleteById(id);
         return ServerResponse.ok()
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(voidMono, Void.class);
@@ -57,14 +108,8 @@ public class ItemsHandler {
     public Mono<ServerResponse> updateItem(ServerRequest serverRequest) {
 
         String id = serverRequest.pathVariable("id");
-        Mono<Item> updatedItem = serverRequest.bodyToMono(Item.class).flatMap(item -> {
-            Mono<Item> itemMono = itemReactiveRepository.findById(id).flatMap(currentItem -> {
-                currentItem.setDescription(item.getDescription());
-                currentItem.setPrice(item.getPrice());
-                return itemReactiveRepository.save(currentItem);
-            });
-            return itemMono;
-        });
+        Mono<Item> updatedItem = serverRequest.bodyToMono(Item.class)
+                .flatMap(item -> itemService.update(id, item));
         return updatedItem.flatMap(item -> ServerResponse.ok().
                 contentType(MediaType.APPLICATION_JSON)
                 .body(fromObject(item))).switchIfEmpty(notFound);
@@ -79,4 +124,10 @@ public class ItemsHandler {
                 .contentType(MediaType.APPLICATION_STREAM_JSON)
                 .body(itemReactiveCappedRepository.findItemsBy(), ItemCapped.class);
     }
+
+    public Mono<ServerResponse> itemsStreamConflated(ServerRequest serverRequest) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_STREAM_JSON)
+                .body(Conflation.latestByKey(itemReactiveCappedRepository.findItemsBy(), ItemCapped::getDescription), ItemCapped.class);
+    }
 }
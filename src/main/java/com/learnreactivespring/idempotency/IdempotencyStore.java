@@ -0,0 +1,246 @@
+package com.learnreactivespring.idempotency;
+
+import com.learnreactivespring.config.IdempotencyProperties;
+import com.learnreactivespring.document.IdempotencyRecord;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.exception.ErrorCode;
+import com.learnreactivespring.exception.ItemServiceException;
+import com.learnreactivespring.repository.IdempotencyRecordRepository;
+import com.learnreactivespring.resilience.ItemStoreResilience;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes item creates sent with an idempotency key happen once. Requests with a key this instance
+ * has seen share the first request's result, whether it is still in flight or already done. When
+ * persisted, the key is reserved in Mongo before the create runs and the created item is stored
+ * with it, so a retry reaching any instance replays the item, or gets a 409 while the first
+ * attempt is still running. The reservation only holds the key for the lease, and is kept for the
+ * full ttl once the item is stored; a reservation whose lease ran out, e.g. because its instance
+ * died, is taken over by the next retry. A create that failed releases the key so it can be retried,
+ * unless it failed in the store, where it may have been written anyway: that key stays held until
+ * the lease runs out. Only the attempt still holding the lease stores its item with the key.
+ * Requests are matched by a SHA-256 digest of the item.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore implements DisposableBean {
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final long leaseMillis;
+    private final Counter replayed;
+    private final Disposable sweeper;
+
+    private final ItemServiceException invalidKey = new ItemServiceException(ErrorCode.BAD_REQUEST, "Invalid idempotency key");
+    private final ItemServiceException inProgress = new ItemServiceException(ErrorCode.CONFLICT);
+    private final ItemServiceException mismatch = new ItemServiceException(ErrorCode.UNPROCESSABLE_ENTITY);
+
+    public IdempotencyStore(IdempotencyProperties properties, IdempotencyRecordRepository idempotencyRecordRepository,
+                            ReactiveMongoOperations reactiveMongoOperations, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.ttlMillis = properties.getTtl().toMillis();
+        this.leaseMillis = properties.getLease().toMillis();
+        this.replayed = meterRegistry.counter("item.idempotency.replayed");
+        long sweepMillis = properties.getSweepInterval().toMillis();
+        this.sweeper = properties.isEnabled() ? Schedulers.parallel()
+                .schedulePeriodically(this::evictExpired, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS) : Disposables.disposed();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!properties.isEnabled() || !properties.isPersist()) {
+            return;
+        }
+        reactiveMongoOperations.indexOps(IdempotencyRecord.class)
+                .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(0).background())
+                .subscribe(name -> log.info("Idempotency record index {} ready", name),
+                        e -> log.warn("Creating the idempotency record TTL index failed", e));
+    }
+
+    /**
+     * Runs the create unless the key was already used, in which case the item it created is returned.
+     */
+    public Mono<Item> execute(String key, Item request, Supplier<Mono<Item>> create) {
+        if (!properties.isEnabled() || key == null) {
+            return create.get();
+        }
+        if (key.isEmpty() || key.length() > properties.getMaxKeyLength()) {
+            return Mono.error(invalidKey);
+        }
+        String requestDigest = digest(request);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= now) {
+            // expired entries are left to the sweeper
+            if (entries.size() >= properties.getMaxEntries()) {
+                return properties.isPersist() ? reserveAndCreate(key, requestDigest, create) : create.get();
+            }
+            Entry created = new Entry(requestDigest, now + ttlMillis);
+            created.result = (properties.isPersist() ? reserveAndCreate(key, requestDigest, create) : Mono.defer(create))
+                    .doOnError(e -> entries.remove(key, created))
+                    .cache();
+            entry = entries.compute(key, (k, existing) -> existing != null && existing.expiresAt > now ? existing : created);
+            if (entry == created) {
+                return created.result;
+            }
+        }
+        if (!entry.requestDigest.equals(requestDigest)) {
+            return Mono.error(mismatch);
+        }
+        replayed.increment();
+        return entry.result;
+    }
+
+    private Mono<Item> reserveAndCreate(String key, String requestDigest, Supplier<Mono<Item>> create) {
+        return Mono.defer(() -> {
+                    Date lockedUntil = new Date(System.currentTimeMillis() + leaseMillis);
+                    return idempotencyRecordRepository.insert(new IdempotencyRecord(key, requestDigest, null, lockedUntil, lockedUntil))
+                            .onErrorResume(DuplicateKeyException.class, e -> takeOver(key, requestDigest, lockedUntil));
+                })
+                .flatMap(reserved -> Mono.defer(create)
+                        .onErrorResume(e -> (isAmbiguous(e) ? Mono.<Void>empty() : release(reserved))
+                                .onErrorResume(deleteFailure -> Mono.empty())
+                                .then(Mono.error(e)))
+                        .flatMap(item -> complete(reserved, item)))
+                .switchIfEmpty(Mono.defer(() -> replay(key, requestDigest)));
+    }
+
+    // Mongo only removes expired records once a minute, so a lapsed reservation is taken over here
+    private Mono<IdempotencyRecord> takeOver(String key, String requestDigest, Date lockedUntil) {
+        Query lapsed = Query.query(Criteria.where("key").is(key)
+                .and("requestDigest").is(requestDigest)
+                .and("response").is(null)
+                .and("lockedUntil").lt(new Date()));
+        return reactiveMongoOperations.findAndModify(lapsed,
+                new Update().set("lockedUntil", lockedUntil).set("expiresAt", lockedUntil),
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+    }
+
+    // the item exists either way, a retry would at worst see the key in progress until the lease runs out
+    private Mono<Item> complete(IdempotencyRecord reserved, Item item) {
+        Update stored = new Update().set("response", item)
+                .unset("lockedUntil")
+                .set("expiresAt", new Date(System.currentTimeMillis() + ttlMillis));
+        return reactiveMongoOperations.updateFirst(held(reserved), stored, IdempotencyRecord.class)
+                .doOnNext(result -> {
+                    if (result.getMatchedCount() == 0) {
+                        log.warn("The lease on idempotency key {} ran out before its item was stored", reserved.getKey());
+                    }
+                })
+                .doOnError(e -> log.warn("Storing the response for idempotency key {} failed", reserved.getKey(), e))
+                .onErrorResume(e -> Mono.empty())
+                .thenReturn(item);
+    }
+
+    private Mono<Void> release(IdempotencyRecord reserved) {
+        return reactiveMongoOperations.remove(held(reserved), IdempotencyRecord.class).then();
+    }
+
+    // the reservation as long as it is still this attempt's, a retry may have taken it over since
+    private static Query held(IdempotencyRecord reserved) {
+        return Query.query(Criteria.where("key").is(reserved.getKey())
+                .and("response").is(null)
+                .and("lockedUntil").is(reserved.getLockedUntil()));
+    }
+
+    // timeouts and connection failures leave it open whether the item was written
+    private static boolean isAmbiguous(Throwable e) {
+        return ItemStoreResilience.isStoreFailure(e)
+                || e instanceof ItemServiceException && ((ItemServiceException) e).getErrorCode() == ErrorCode.SERVICE_UNAVAILABLE;
+    }
+
+    private Mono<Item> replay(String key, String requestDigest) {
+        return idempotencyRecordRepository.findById(key)
+                .switchIfEmpty(Mono.error(inProgress))
+                .flatMap(record -> {
+                    if (!requestDigest.equals(record.getRequestDigest())) {
+                        return Mono.error(mismatch);
+                    }
+                    if (record.getResponse() == null) {
+                        return Mono.error(inProgress);
+                    }
+                    replayed.increment();
+                    return Mono.just(record.getResponse());
+                });
+    }
+
+    void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    static String digest(Item item) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, item.getId());
+        update(digest, item.getDescription());
+        update(digest, item.getPrice() == null ? null : item.getPrice().toString());
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    // length-prefixed, so field boundaries and nulls can't collide
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.dispose();
+    }
+
+    private static final class Entry {
+
+        private final String requestDigest;
+        private final long expiresAt;
+        private Mono<Item> result;
+
+        private Entry(String requestDigest, long expiresAt) {
+            this.requestDigest = requestDigest;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.learnreactivespring.initialize;
+
+import com.learnreactivespring.config.CappedCollectionProperties;
+import com.learnreactivespring.document.ItemCapped;
+import com.mongodb.MongoServerException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Creates the ItemCapped capped collection if it is missing, sized from the expected event rate
+ * and retention, checks an existing one and ensures its indexes. Runs in the background so
+ * startup never waits on Mongo; anything depending on the collection can wait on {@link #ready()}.
+ * A failed attempt is not remembered, the next subscriber to {@link #ready()} tries again. Should
+ * another instance create the collection first, it is checked like any existing one.
+ */
+@Component
+@Slf4j
+public class CappedCollectionProvisioner implements SmartLifecycle {
+
+    private static final int NAMESPACE_EXISTS = 48;
+    private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final CappedCollectionProperties properties;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final Mono<Void> ready;
+    private volatile boolean running;
+
+    public CappedCollectionProvisioner(CappedCollectionProperties properties, ReactiveMongoOperations reactiveMongoOperations) {
+        this.properties = properties;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.ready = properties.isProvision() ? provision().cache(done -> FOREVER, e -> Duration.ZERO, () -> FOREVER) : Mono.empty();
+    }
+
+    public Mono<Void> ready() {
+        return ready;
+    }
+
+    private Mono<Void> provision() {
+        String collectionName = reactiveMongoOperations.getCollectionName(ItemCapped.class);
+        return reactiveMongoOperations.collectionExists(ItemCapped.class)
+                .flatMap(exists -> exists ? validate(collectionName) : create(collectionName))
+                .then(reactiveMongoOperations.indexOps(ItemCapped.class)
+                        .ensureIndex(new Index().on("description", Sort.Direction.ASC).background()))
+                .doOnSuccess(index -> log.info("Capped collection {} provisioned", collectionName))
+                .then();
+    }
+
+    Mono<Void> create(String collectionName) {
+        log.info("Creating capped collection {} with size {} bytes, max {} documents",
+                collectionName, properties.sizeBytes(), properties.maxDocuments());
+        return reactiveMongoOperations.createCollection(ItemCapped.class, CollectionOptions.empty()
+                .size(properties.sizeBytes())
+                .maxDocuments(properties.maxDocuments())
+                .capped())
+                .then()
+                .onErrorResume(CappedCollectionProvisioner::isNamespaceExists, e -> {
+                    log.info("Capped collection {} was created concurrently, checking it", collectionName);
+                    return validate(collectionName);
+                });
+    }
+
+    // Spring wraps the driver's exception
+    private static boolean isNamespaceExists(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoServerException && ((MongoServerException) cause).getCode() == NAMESPACE_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> validate(String collectionName) {
+        return reactiveMongoOperations.executeCommand(new Document("collStats", collectionName))
+                .flatMap(stats -> {
+                    if (!stats.getBoolean("capped", false)) {
+                        if (properties.isConvertIfUncapped()) {
+                            log.warn("Collection {} is not capped, converting it to {} bytes", collectionName, properties.sizeBytes());
+                            return reactiveMongoOperations.executeCommand(new Document("convertToCapped", collectionName)
+                                    .append("size", properties.sizeBytes()))
+                                    .then();
+                        }
+                        log.warn("Collection {} is not capped, tailable streams on it will fail", collectionName);
+                        return Mono.empty();
+                    }
+                    long maxSize = ((Number) stats.getOrDefault("maxSize", 0L)).longValue();
+                    long max = ((Number) stats.getOrDefault("max", 0L)).longValue();
+                    if (maxSize < properties.sizeBytes() || (max > 0 && max < properties.maxDocuments())) {
+                        log.warn("Capped collection {} holds {} bytes / {} documents, configuration expects {} bytes / {} documents",
+                                collectionName, maxSize, max, properties.sizeBytes(), properties.maxDocuments());
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        ready.subscribe(null, e -> log.error("Provisioning the capped collection failed", e));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ahead of the producers writing to the collection
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+}
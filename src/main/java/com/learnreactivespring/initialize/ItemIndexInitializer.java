@@ -0,0 +1,40 @@
+package com.learnreactivespring.initialize;
+
+import com.learnreactivespring.config.StartupProperties;
+import com.learnreactivespring.document.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the Item indexes once the application is up, as background builds, so neither context
+ * refresh nor the collection is held up by them.
+ */
+@Component
+@Slf4j
+public class ItemIndexInitializer {
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final StartupProperties properties;
+
+    public ItemIndexInitializer(ReactiveMongoOperations reactiveMongoOperations, StartupProperties properties) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!properties.isBackgroundIndexes()) {
+            return;
+        }
+        // backs ItemReactiveRepository.findByDescription
+        reactiveMongoOperations.indexOps(Item.class)
+                .ensureIndex(new Index().on("description", Sort.Direction.ASC).background())
+                .subscribe(name -> log.info("Item index {} ready", name),
+                        e -> log.warn("Creating Item indexes failed", e));
+    }
+}
@@ -0,0 +1,7 @@
+package com.learnreactivespring.repository;
+
+import com.learnreactivespring.document.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface IdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecord, String> {
+}
@@ -0,0 +1,7 @@
+package com.learnreactivespring.repository;
+
+import com.learnreactivespring.document.ItemInvalidation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ItemInvalidationRepository extends ReactiveMongoRepository<ItemInvalidation, String> {
+}
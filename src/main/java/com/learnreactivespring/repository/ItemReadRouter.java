@@ -0,0 +1,42 @@
+package com.learnreactivespring.repository;
+
+import com.learnreactivespring.config.ReadRoutingProperties;
+import com.learnreactivespring.service.ReadEndpoint;
+import com.mongodb.ReadPreference;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.learnreactivespring.config.ReadRoutingProperties.ReadTarget.SECONDARY_PREFERRED;
+
+/**
+ * Hands out a secondaryPreferred template for the read endpoints configured to offload the primary.
+ * Writes and read-after-write paths never go through here.
+ */
+@Component
+public class ItemReadRouter {
+
+    private final ReadRoutingProperties properties;
+    private final ReactiveMongoTemplate secondaryPreferred;
+
+    public ItemReadRouter(ReadRoutingProperties properties,
+                          ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+                          ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.properties = properties;
+        // kept out of the context so it doesn't replace the template backing the repositories
+        this.secondaryPreferred = new ReactiveMongoTemplate(reactiveMongoDatabaseFactory, reactiveMongoTemplate.getConverter());
+        this.secondaryPreferred.setReadPreference(ReadPreference.secondaryPreferred(
+                properties.getMaxStaleness().toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    public boolean routesToSecondary(ReadEndpoint endpoint) {
+        return properties.isEnabled() && properties.getEndpoints().get(endpoint) == SECONDARY_PREFERRED;
+    }
+
+    public ReactiveMongoOperations secondaryPreferred() {
+        return secondaryPreferred;
+    }
+}
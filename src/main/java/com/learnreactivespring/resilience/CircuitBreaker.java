@@ -0,0 +1,138 @@
+package com.learnreactivespring.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free circuit breaker over a count-based sliding window of outcomes. Opens when the failure
+ * rate over the window crosses the threshold, lets a fixed number of probe calls through once the
+ * open duration has passed, and closes again when they all succeed.
+ * <p>
+ * The window counters are updated without a lock, so the failure rate is approximate while a
+ * transition resets them; that only shifts the exact call that trips the breaker.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicIntegerArray window;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openNanos, int halfOpenCalls) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.window = new AtomicIntegerArray(windowSize);
+    }
+
+    public boolean tryAcquire(long now) {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                long opened = openedAt.get();
+                if (now - opened < openNanos) {
+                    return false;
+                }
+                // only the thread that claims the transition resets the probe counts, and before
+                // HALF_OPEN is visible, so no other thread's probe permit is wiped out
+                if (openedAt.compareAndSet(opened, now)) {
+                    halfOpenPermits.set(0);
+                    halfOpenSuccesses.set(0);
+                    state.compareAndSet(State.OPEN, State.HALF_OPEN);
+                }
+                return tryAcquire(now);
+            default:
+                return halfOpenPermits.incrementAndGet() <= halfOpenCalls;
+        }
+    }
+
+    public void onSuccess() {
+        if (state.get() == State.HALF_OPEN) {
+            if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                resetWindow();
+            }
+            return;
+        }
+        record(SUCCESS);
+    }
+
+    public void onFailure(long now) {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN, now);
+            return;
+        }
+        record(FAILURE);
+        if (current == State.CLOSED && failureRate() >= failureRateThreshold) {
+            open(State.CLOSED, now);
+        }
+    }
+
+    /**
+     * The call was cancelled before an outcome; gives a half-open probe permit back.
+     */
+    public void onIgnored() {
+        if (state.get() == State.HALF_OPEN) {
+            halfOpenPermits.decrementAndGet();
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public double failureRate() {
+        long calls = Math.min(cursor.get(), windowSize);
+        if (calls < minimumCalls) {
+            return 0;
+        }
+        return Math.max(0, failures.get()) / (double) calls;
+    }
+
+    private void open(State from, long now) {
+        // set first so no thread sees OPEN with a stale opening time
+        openedAt.set(now);
+        state.compareAndSet(from, State.OPEN);
+    }
+
+    private void record(int outcome) {
+        int slot = (int) (cursor.getAndIncrement() % windowSize);
+        int previous = window.getAndSet(slot, outcome);
+        if (previous == FAILURE) {
+            failures.decrementAndGet();
+        }
+        if (outcome == FAILURE) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < windowSize; i++) {
+            window.set(i, EMPTY);
+        }
+        failures.set(0);
+        cursor.set(0);
+    }
+}
@@ -0,0 +1,111 @@
+package com.learnreactivespring.resilience;
+
+import com.learnreactivespring.config.HedgingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged single reads: when the primary read hasn't answered within the configured percentile of
+ * recent read latency, a second read is fired and whichever returns an item first wins; the other
+ * is cancelled. Hedges draw from a budget that earns budget-ratio of a hedge per read, so at most
+ * that share of traffic is duplicated even when everything is slow.
+ */
+@Component
+public class HedgedReads {
+
+    private static final long CREDIT = 1000;
+    // lets a short burst of slow reads hedge right after a quiet period
+    private static final long MAX_CREDITS = 10 * CREDIT;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final HedgingProperties properties;
+    private final LatencyHistogram histogram;
+    private final long creditPerRead;
+    private final AtomicLong credits = new AtomicLong(MAX_CREDITS);
+    private final Counter hedges;
+    private final Counter wins;
+    private volatile long delayNanos;
+    private volatile long delayComputedAt;
+
+    public HedgedReads(HedgingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.histogram = new LatencyHistogram(properties.getWindow().toNanos(), properties.getMinSamples(), System.nanoTime());
+        this.creditPerRead = Math.round(properties.getBudgetRatio() * CREDIT);
+        this.delayNanos = properties.getMaxDelay().toNanos();
+        this.delayComputedAt = System.nanoTime();
+        this.hedges = meterRegistry.counter("item.hedge.requests");
+        this.wins = meterRegistry.counter("item.hedge.wins");
+        Gauge.builder("item.hedge.delay", this, hedgedReads -> hedgedReads.delayNanos / 1e6)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public <T> Mono<T> read(Mono<T> primary, Supplier<Mono<T>> hedge) {
+        return Mono.defer(() -> {
+            earnCredit();
+            long start = System.nanoTime();
+            // a cancelled primary still records how long it had taken, so slow reads aren't dropped from the percentile
+            Mono<T> timedPrimary = primary.doFinally(signal -> {
+                long now = System.nanoTime();
+                histogram.record(now - start, now);
+            });
+            // a hedge that fails or finds nothing (a lagging secondary) never wins, the primary decides
+            Mono<T> hedged = Mono.delay(Duration.ofNanos(delay(start)))
+                    .flatMap(tick -> {
+                        if (!tryHedge()) {
+                            return Mono.never();
+                        }
+                        hedges.increment();
+                        return hedge.get()
+                                .doOnNext(value -> wins.increment())
+                                .onErrorResume(e -> Mono.never())
+                                .switchIfEmpty(Mono.never());
+                    });
+            return Mono.firstWithSignal(timedPrimary, hedged);
+        });
+    }
+
+    private long delay(long now) {
+        if (now - delayComputedAt >= DELAY_REFRESH_NANOS) {
+            long percentile = histogram.percentile(properties.getPercentile());
+            delayNanos = percentile < 0 ? properties.getMaxDelay().toNanos() :
+                    Math.max(properties.getMinDelay().toNanos(), Math.min(properties.getMaxDelay().toNanos(), percentile));
+            delayComputedAt = now;
+        }
+        return delayNanos;
+    }
+
+    private void earnCredit() {
+        for (; ; ) {
+            long current = credits.get();
+            long next = Math.min(MAX_CREDITS, current + creditPerRead);
+            if (next == current || credits.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryHedge() {
+        for (; ; ) {
+            long current = credits.get();
+            if (current < CREDIT) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - CREDIT)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.learnreactivespring.resilience;
+
+public enum ItemOperation {
+    FIND_ALL,
+    FIND_BY_ID,
+    SAVE,
+    UPDATE,
+    DELETE;
+
+    private final String tag = name().toLowerCase().replace('_', '-');
+
+    public String tag() {
+        return tag;
+    }
+}
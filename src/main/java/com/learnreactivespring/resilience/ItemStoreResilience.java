@@ -0,0 +1,165 @@
+package com.learnreactivespring.resilience;
+
+import com.learnreactivespring.config.ResilienceProperties;
+import com.learnreactivespring.exception.ErrorCode;
+import com.learnreactivespring.exception.ItemServiceException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Per-operation timeout and circuit breaker around Mongo calls. While a breaker is open, or when a
+ * call times out or fails in the store, the operation's fallback is used if it has one; otherwise,
+ * or if the fallback has nothing, the caller gets a 503 right away instead of queueing on Mongo.
+ * Serving a fallback sets the {@link AtomicBoolean} found under {@link #DEGRADED_CONTEXT_KEY} in the
+ * subscriber context, so the response can be marked as possibly stale.
+ */
+@Component
+@Slf4j
+public class ItemStoreResilience {
+
+    public static final String DEGRADED_CONTEXT_KEY = ItemStoreResilience.class.getName() + ".DEGRADED";
+
+    private final ResilienceProperties properties;
+    private final Map<ItemOperation, CircuitBreaker> breakers = new EnumMap<>(ItemOperation.class);
+    private final Map<ItemOperation, Duration> timeouts = new EnumMap<>(ItemOperation.class);
+    private final Map<ItemOperation, Counter> rejected = new EnumMap<>(ItemOperation.class);
+    private final Map<ItemOperation, Counter> timedOut = new EnumMap<>(ItemOperation.class);
+    private final Map<ItemOperation, Counter> fallbacks = new EnumMap<>(ItemOperation.class);
+    private final Map<ItemOperation, ItemServiceException> unavailable = new EnumMap<>(ItemOperation.class);
+
+    public ItemStoreResilience(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        ResilienceProperties.Breaker breaker = properties.getBreaker();
+        for (ItemOperation operation : ItemOperation.values()) {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(breaker.getWindowSize(), breaker.getMinimumCalls(),
+                    breaker.getFailureRateThreshold(), breaker.getOpenDuration().toNanos(), breaker.getHalfOpenCalls());
+            breakers.put(operation, circuitBreaker);
+            timeouts.put(operation, properties.timeout(operation));
+            // 0 closed, 1 half-open, 2 open
+            Gauge.builder("item.mongo.breaker.state", circuitBreaker, cb -> cb.getState().ordinal())
+                    .tag("operation", operation.tag())
+                    .register(meterRegistry);
+            Gauge.builder("item.mongo.breaker.failure.rate", circuitBreaker, CircuitBreaker::failureRate)
+                    .tag("operation", operation.tag())
+                    .register(meterRegistry);
+            rejected.put(operation, meterRegistry.counter("item.mongo.rejected", "operation", operation.tag()));
+            timedOut.put(operation, meterRegistry.counter("item.mongo.timeouts", "operation", operation.tag()));
+            fallbacks.put(operation, meterRegistry.counter("item.mongo.fallbacks", "operation", operation.tag()));
+            // shared, it carries no stack trace
+            unavailable.put(operation, new ItemServiceException(ErrorCode.SERVICE_UNAVAILABLE,
+                    "Item store unavailable for " + operation.tag()));
+        }
+    }
+
+    public <T> Mono<T> mono(ItemOperation operation, Mono<T> call) {
+        return mono(operation, call, null);
+    }
+
+    public <T> Mono<T> mono(ItemOperation operation, Mono<T> call, Supplier<Mono<T>> fallback) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            CircuitBreaker breaker = breakers.get(operation);
+            if (!breaker.tryAcquire(System.nanoTime())) {
+                rejected.get(operation).increment();
+                return monoFallback(operation, fallback);
+            }
+            return call.timeout(timeouts.get(operation))
+                    .doOnSuccess(value -> breaker.onSuccess())
+                    .doOnError(e -> record(operation, breaker, e))
+                    .doOnCancel(breaker::onIgnored)
+                    .onErrorResume(ItemStoreResilience::isStoreFailure, e -> monoFallback(operation, fallback));
+        });
+    }
+
+    public <T> Flux<T> flux(ItemOperation operation, Flux<T> call, Supplier<Flux<T>> fallback) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        return Flux.defer(() -> {
+            CircuitBreaker breaker = breakers.get(operation);
+            if (!breaker.tryAcquire(System.nanoTime())) {
+                rejected.get(operation).increment();
+                return fluxFallback(operation, fallback);
+            }
+            // once items have gone out, switching to the fallback would repeat them
+            AtomicBoolean emitted = new AtomicBoolean();
+            return call.timeout(timeouts.get(operation))
+                    .doOnNext(item -> emitted.lazySet(true))
+                    .doOnComplete(breaker::onSuccess)
+                    .doOnError(e -> record(operation, breaker, e))
+                    .doOnCancel(breaker::onIgnored)
+                    .onErrorResume(e -> !emitted.get() && isStoreFailure(e), e -> fluxFallback(operation, fallback));
+        });
+    }
+
+    private void record(ItemOperation operation, CircuitBreaker breaker, Throwable e) {
+        if (e instanceof TimeoutException) {
+            timedOut.get(operation).increment();
+        }
+        if (isStoreFailure(e)) {
+            CircuitBreaker.State before = breaker.getState();
+            breaker.onFailure(System.nanoTime());
+            if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+                log.warn("Circuit breaker for {} opened at failure rate {}", operation.tag(), breaker.failureRate());
+            }
+        } else {
+            // the store answered, the request itself was at fault
+            breaker.onSuccess();
+        }
+    }
+
+    private <T> Mono<T> monoFallback(ItemOperation operation, Supplier<Mono<T>> fallback) {
+        if (fallback == null) {
+            return Mono.error(unavailable.get(operation));
+        }
+        fallbacks.get(operation).increment();
+        return Mono.deferContextual(context -> {
+            markDegraded(context);
+            return fallback.get();
+        }).switchIfEmpty(Mono.error(unavailable.get(operation)));
+    }
+
+    private <T> Flux<T> fluxFallback(ItemOperation operation, Supplier<Flux<T>> fallback) {
+        if (fallback == null) {
+            return Flux.error(unavailable.get(operation));
+        }
+        fallbacks.get(operation).increment();
+        return Flux.deferContextual(context -> {
+            markDegraded(context);
+            return fallback.get();
+        }).switchIfEmpty(Flux.error(unavailable.get(operation)));
+    }
+
+    private static void markDegraded(ContextView context) {
+        context.<AtomicBoolean>getOrEmpty(DEGRADED_CONTEXT_KEY).ifPresent(degraded -> degraded.set(true));
+    }
+
+    // only failures of the store itself; duplicate keys, validation and the like are the request's fault.
+    // Spring Data translates socket and server selection failures to DataAccessResourceFailureException
+    public static boolean isStoreFailure(Throwable e) {
+        return e instanceof TimeoutException
+                || e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof MongoSocketException
+                || e instanceof MongoTimeoutException;
+    }
+}
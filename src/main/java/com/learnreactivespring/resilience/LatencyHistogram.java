@@ -0,0 +1,79 @@
+package com.learnreactivespring.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free log-linear latency histogram (four buckets per power of two, about 19% resolution,
+ * 1us to 17s). Samples go into the current window; percentiles are read from the last complete
+ * window once it holds enough samples, so the estimate follows load changes within one window.
+ */
+public class LatencyHistogram {
+
+    private static final int MIN_EXPONENT = 10;
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 24 * SUB_BUCKETS;
+
+    private final long windowNanos;
+    private final long minSamples;
+    private final AtomicReference<AtomicLongArray> current = new AtomicReference<>(new AtomicLongArray(BUCKETS));
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+    private final AtomicLong windowStart;
+
+    public LatencyHistogram(long windowNanos, long minSamples, long now) {
+        this.windowNanos = windowNanos;
+        this.minSamples = minSamples;
+        this.windowStart = new AtomicLong(now);
+    }
+
+    public void record(long nanos, long now) {
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            previous = current.getAndSet(new AtomicLongArray(BUCKETS));
+        }
+        current.get().incrementAndGet(index(nanos));
+    }
+
+    /**
+     * @return upper bound of the bucket holding the percentile, or -1 without enough samples
+     */
+    public long percentile(double percentile) {
+        long value = percentile(previous, percentile);
+        return value >= 0 ? value : percentile(current.get(), percentile);
+    }
+
+    private long percentile(AtomicLongArray buckets, double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += buckets.get(i);
+        }
+        if (total < minSamples) {
+            return -1;
+        }
+        long target = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int index(long nanos) {
+        if (nanos < (1L << MIN_EXPONENT)) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) ((nanos >> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub);
+    }
+
+    static long upperBound(int index) {
+        int exponent = index / SUB_BUCKETS + MIN_EXPONENT;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - 2);
+    }
+}
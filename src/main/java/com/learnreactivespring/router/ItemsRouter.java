@@ -8,6 +8,7 @@ import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static com.learnreactivespring.constants.ItemConstants.ITEM_BULK_FUNCTIONAL_END_POINT_V1;
 import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
 import static com.learnreactivespring.constants.ItemConstants.ITEM_STREAM_FUNCTIONAL_END_POINT;
 import static org.springframework.web.reactive.function.server.RequestPredicates.*;
@@ -17,9 +18,11 @@ public class ItemsRouter {
 
     @Bean
     public RouterFunction<ServerResponse> itemsRoute(ItemsHandler itemsHandler) {
-        return RouterFunctions.route(GET(ITEM_FUNCTIONAL_END_POINT_V1).and(accept(MediaType.APPLICATION_JSON)), itemsHandler::getAllItems)
+        return RouterFunctions.route(GET(ITEM_FUNCTIONAL_END_POINT_V1).and(queryParam("enrich", "true"::equals)).and(accept(MediaType.APPLICATION_JSON)), itemsHandler::getAllItemsEnriched)
+                .andRoute(GET(ITEM_FUNCTIONAL_END_POINT_V1).and(accept(MediaType.APPLICATION_JSON)), itemsHandler::getAllItems)
                 .andRoute(GET(ITEM_FUNCTIONAL_END_POINT_V1 + "/{id}").and(accept(MediaType.APPLICATION_JSON)), itemsHandler::getOneItem)
                 .andRoute(POST(ITEM_FUNCTIONAL_END_POINT_V1).and(accept(MediaType.APPLICATION_JSON)), itemsHandler::createItem)
+                .andRoute(POST(ITEM_BULK_FUNCTIONAL_END_POINT_V1).or(PUT(ITEM_BULK_FUNCTIONAL_END_POINT_V1)), itemsHandler::saveItems)
                 .andRoute(DELETE(ITEM_FUNCTIONAL_END_POINT_V1 + "/{id}").and(accept(MediaType.APPLICATION_JSON)), itemsHandler::deleteItem)
                 .andRoute(PUT(ITEM_FUNCTIONAL_END_POINT_V1 + "/{id}").and(accept(MediaType.APPLICATION_JSON)), itemsHandler::updateItem);
     }
@@ -33,7 +36,8 @@ public class ItemsRouter {
 
     @Bean
     public RouterFunction<ServerResponse> itemsStreamRoute(ItemsHandler itemsHandler) {
-        return RouterFunctions.route(GET(ITEM_STREAM_FUNCTIONAL_END_POINT).and(accept(MediaType.APPLICATION_STREAM_JSON)), itemsHandler::itemsStream);
+        return RouterFunctions.route(GET(ITEM_STREAM_FUNCTIONAL_END_POINT).and(queryParam("conflate", "true"::equals)).and(accept(MediaType.APPLICATION_STREAM_JSON)), itemsHandler::itemsStreamConflated)
+                .andRoute(GET(ITEM_STREAM_FUNCTIONAL_END_POINT).and(accept(MediaType.APPLICATION_STREAM_JSON)), itemsHandler::itemsStream);
 
     }
 }
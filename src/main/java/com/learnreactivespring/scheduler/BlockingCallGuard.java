@@ -0,0 +1,73 @@
+package com.learnreactivespring.scheduler;
+
+import com.learnreactivespring.cache.OffHeapItemStore;
+import com.learnreactivespring.config.BlockingGuardProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingMethod;
+import reactor.blockhound.BlockingOperationError;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Installs BlockHound so blocking calls on Netty event loops and Reactor's non-blocking schedulers
+ * are caught. BlockHound instruments the JVM once, so the install and the callback are static;
+ * the mode can still be switched per context.
+ */
+@Component
+@Slf4j
+public class BlockingCallGuard {
+
+    private static final AtomicBoolean installed = new AtomicBoolean();
+    private static final AtomicLong detections = new AtomicLong();
+    private static final Set<String> reportedMethods = ConcurrentHashMap.newKeySet();
+    private static volatile BlockingGuardProperties.Mode mode = BlockingGuardProperties.Mode.REPORT;
+
+    public BlockingCallGuard(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("item.blocking.detected", detections, AtomicLong::get)
+                .description("Blocking calls detected on non-blocking threads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called from {@link com.learnreactivespring.config.BlockingGuardConfig} before any bean is created:
+     * a scheduler thread already waiting inside a JDK method when BlockHound instruments it would
+     * miss the allow-list for that method (e.g. an idle worker waiting for a delayed task).
+     */
+    public static void install(BlockingGuardProperties properties) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        mode = properties.getMode();
+        if (installed.compareAndSet(false, true)) {
+            // picks up the Reactor and Netty integrations from the classpath as well
+            BlockHound.install(builder -> builder.blockingMethodCallback(BlockingCallGuard::onBlockingCall)
+                    // waits on its lock only while another thread copies a record or takes a bounded compaction step
+                    .allowBlockingCallsInside(OffHeapItemStore.class.getName(), "get")
+                    .allowBlockingCallsInside(OffHeapItemStore.class.getName(), "put")
+                    .allowBlockingCallsInside(OffHeapItemStore.class.getName(), "evict")
+                    // all() reads the table one slot at a time, so the store fallback can scan it on the event loop
+                    .allowBlockingCallsInside(OffHeapItemStore.class.getName(), "tableLength")
+                    .allowBlockingCallsInside(OffHeapItemStore.class.getName(), "readSlot"));
+            log.info("BlockHound installed in {} mode", mode);
+        }
+    }
+
+    private static void onBlockingCall(BlockingMethod method) {
+        detections.incrementAndGet();
+        if (mode == BlockingGuardProperties.Mode.FAIL) {
+            throw new BlockingOperationError(method);
+        }
+        // full stack trace once per method, the counter covers repeats
+        if (reportedMethods.add(method.toString())) {
+            log.warn("Blocking call {} on non-blocking thread {}", method, Thread.currentThread().getName(),
+                    new BlockingOperationError(method));
+        }
+    }
+}
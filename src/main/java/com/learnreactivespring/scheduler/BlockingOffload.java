@@ -0,0 +1,59 @@
+package com.learnreactivespring.scheduler;
+
+import com.learnreactivespring.config.OffloadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs legitimately blocking work off the event loops, on a bounded elastic pool or on virtual threads.
+ */
+@Component
+public class BlockingOffload implements DisposableBean {
+
+    private final Scheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+
+    public BlockingOffload(OffloadProperties properties, MeterRegistry meterRegistry) {
+        this.scheduler = OffloadSchedulers.create(properties);
+        this.meterRegistry = meterRegistry;
+        this.rejected = meterRegistry.counter("item.offload.rejected");
+        meterRegistry.gauge("item.offload.active", active);
+    }
+
+    public <T> Mono<T> call(String name, Callable<T> task) {
+        Timer timer = meterRegistry.timer("item.offload.duration", "task", name);
+        return Mono.fromCallable(() -> {
+            active.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                return task.call();
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                active.decrementAndGet();
+            }
+        })
+                .subscribeOn(scheduler)
+                .doOnError(RejectedExecutionException.class, e -> rejected.increment());
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,53 @@
+package com.learnreactivespring.scheduler;
+
+import com.learnreactivespring.config.OffloadProperties;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the scheduler behind {@link BlockingOffload}. Virtual threads are looked up reflectively
+ * so the build stays on Java 11 while a Java 21 runtime can opt in.
+ */
+@Slf4j
+public final class OffloadSchedulers {
+
+    private OffloadSchedulers() {
+    }
+
+    public static Scheduler create(OffloadProperties properties) {
+        if (properties.getExecutor() == OffloadProperties.Executor.VIRTUAL_THREADS) {
+            ExecutorService virtualThreads = virtualThreadPerTaskExecutor();
+            if (virtualThreads != null) {
+                return Schedulers.fromExecutorService(virtualThreads, "virtual-offload");
+            }
+            log.warn("Virtual threads need Java 21+, running on {}; falling back to bounded elastic",
+                    System.getProperty("java.version"));
+        }
+        return Schedulers.newBoundedElastic(properties.getThreadCap(), properties.getQueuedTaskCap(), "blocking-offload");
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        if (!virtualThreadsAvailable()) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not create a virtual thread executor", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.learnreactivespring.service;
+
+import com.learnreactivespring.document.Item;
+
+/**
+ * Told about every write {@link ItemService} completes, on the thread that completed it.
+ * Implementations must not block.
+ */
+public interface ItemChangeListener {
+
+    void onSaved(Item item);
+
+    void onDeleted(String id);
+}
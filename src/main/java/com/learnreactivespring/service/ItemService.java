@@ -0,0 +1,123 @@
+package com.learnreactivespring.service;
+
+import com.learnreactivespring.cache.ItemCache;
+import com.learnreactivespring.config.BulkProperties;
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.config.HedgingProperties;
+import com.learnreactivespring.config.ReadRoutingProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.repository.ItemReactiveRepository;
+import com.learnreactivespring.repository.ItemReadRouter;
+import com.learnreactivespring.resilience.HedgedReads;
+import com.learnreactivespring.resilience.ItemOperation;
+import com.learnreactivespring.resilience.ItemStoreResilience;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class ItemService {
+
+    @Autowired
+    ItemReactiveRepository itemReactiveRepository;
+
+    @Autowired
+    ItemReadRouter itemReadRouter;
+
+    @Autowired
+    ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    ItemStoreResilience itemStoreResilience;
+
+    @Autowired
+    ItemCache itemCache;
+
+    @Autowired
+    CacheProperties cacheProperties;
+
+    @Autowired
+    HedgedReads hedgedReads;
+
+    @Autowired
+    HedgingProperties hedgingProperties;
+
+    @Autowired
+    BulkProperties bulkProperties;
+
+    @Autowired(required = false)
+    List<ItemChangeListener> itemChangeListeners = Collections.emptyList();
+
+    // reads fall back to the cache while Mongo is failing, writes fail fast
+    public Flux<Item> findAll(ReadEndpoint endpoint) {
+        Flux<Item> items = itemReadRouter.routesToSecondary(endpoint) ?
+                itemReadRouter.secondaryPreferred().findAll(Item.class) : itemReactiveRepository.findAll();
+        return itemStoreResilience.flux(ItemOperation.FIND_ALL, items.doOnNext(itemCache::put), itemCache::all);
+    }
+
+    public Flux<Item> findAll(ReadEndpoint endpoint, int limit) {
+        Query query = new Query().limit(limit);
+        Flux<Item> items = itemReadRouter.routesToSecondary(endpoint) ?
+                itemReadRouter.secondaryPreferred().find(query, Item.class) : reactiveMongoOperations.find(query, Item.class);
+        return itemStoreResilience.flux(ItemOperation.FIND_ALL, items.doOnNext(itemCache::put), () -> itemCache.all().take(limit));
+    }
+
+    public Mono<Item> findById(String id, ReadEndpoint endpoint) {
+        Mono<Item> item = itemReadRouter.routesToSecondary(endpoint) ?
+                itemReadRouter.secondaryPreferred().findById(id, Item.class) : itemReactiveRepository.findById(id);
+        item = item.doOnNext(itemCache::put);
+        if (hedgedReads.isEnabled()) {
+            // a hedge answered by a lagging secondary is returned but not cached
+            item = hedgedReads.read(item, () -> hedgingProperties.getTarget() == ReadRoutingProperties.ReadTarget.PRIMARY ?
+                    itemReactiveRepository.findById(id).doOnNext(itemCache::put) : itemReadRouter.secondaryPreferred().findById(id, Item.class));
+        }
+        Mono<Item> stored = itemStoreResilience.mono(ItemOperation.FIND_BY_ID, item,
+                () -> Mono.justOrEmpty(itemCache.get(id)));
+        return cacheProperties.isServeReads() ? Mono.fromSupplier(() -> itemCache.get(id)).switchIfEmpty(stored) : stored;
+    }
+
+    public Mono<Item> save(Item item) {
+        return itemStoreResilience.mono(ItemOperation.SAVE, itemReactiveRepository.save(item).doOnNext(this::saved));
+    }
+
+    // saves as the items are decoded, emitting them in request order
+    public Flux<Item> saveAll(Flux<Item> items) {
+        return items.flatMapSequential(this::save, bulkProperties.getWriteConcurrency());
+    }
+
+    public Mono<Void> deleteById(String id) {
+        return itemStoreResilience.mono(ItemOperation.DELETE, itemReactiveRepository.deleteById(id)
+                .doOnSuccess(done -> deleted(id)));
+    }
+
+    // always read from the primary so the update applies to the latest version
+    public Mono<Item> update(String id, Item item) {
+        return itemStoreResilience.mono(ItemOperation.UPDATE, itemReactiveRepository.findById(id)
+                .flatMap(currentItem -> {
+                    currentItem.setPrice(item.getPrice());
+                    currentItem.setDescription(item.getDescription());
+                    return itemReactiveRepository.save(currentItem);
+                })
+                .doOnNext(this::saved));
+    }
+
+    private void saved(Item item) {
+        itemCache.put(item);
+        for (ItemChangeListener listener : itemChangeListeners) {
+            listener.onSaved(item);
+        }
+    }
+
+    private void deleted(String id) {
+        itemCache.evict(id);
+        for (ItemChangeListener listener : itemChangeListeners) {
+            listener.onDeleted(id);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.learnreactivespring.service;
+
+/**
+ * Read paths that can be routed independently, bound from item.read-routing.endpoints
+ * (e.g. items-list: secondary-preferred).
+ */
+public enum ReadEndpoint {
+    ITEMS_LIST,
+    ITEMS_ONE,
+    FUN_ITEMS_LIST,
+    FUN_ITEMS_ONE
+}
@@ -0,0 +1,44 @@
+package com.learnreactivespring.startup;
+
+import com.learnreactivespring.config.StartupProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Holds readiness until Mongo answers a ping, which also opens the first pooled connection
+ * instead of leaving it to the first request.
+ */
+@Component
+@Slf4j
+public class MongoReadinessCheck {
+
+    static final String STEP = "mongo";
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final StartupHealthIndicator startupHealthIndicator;
+    private final StartupProperties properties;
+
+    public MongoReadinessCheck(ReactiveMongoOperations reactiveMongoOperations, StartupHealthIndicator startupHealthIndicator,
+                               StartupProperties properties) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.startupHealthIndicator = startupHealthIndicator;
+        this.properties = properties;
+        startupHealthIndicator.await(STEP);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ping() {
+        reactiveMongoOperations.executeCommand(new Document("ping", 1))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100)).maxBackoff(Duration.ofSeconds(2)))
+                .timeout(properties.getMongoCheckTimeout())
+                .subscribe(result -> startupHealthIndicator.complete(STEP),
+                        e -> log.error("Mongo did not answer within {}, staying out of service", properties.getMongoCheckTimeout(), e));
+    }
+}
@@ -0,0 +1,75 @@
+package com.learnreactivespring.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Readiness gate for the startup steps that must finish before the instance takes traffic.
+ * Part of the readiness health group, so the probe stays OUT_OF_SERVICE until every awaited step
+ * has completed and the application has started.
+ */
+@Component
+@Slf4j
+public class StartupHealthIndicator implements HealthIndicator {
+
+    static final String APPLICATION_STEP = "application";
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    private volatile boolean ready;
+
+    public StartupHealthIndicator(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        pending.add(APPLICATION_STEP);
+    }
+
+    /**
+     * Registers a step; call from a bean constructor so it is in place before the application starts.
+     */
+    public void await(String step) {
+        pending.add(step);
+    }
+
+    public void complete(String step) {
+        if (pending.remove(step) && pending.isEmpty()) {
+            markReady();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applicationReady() {
+        complete(APPLICATION_STEP);
+    }
+
+    private synchronized void markReady() {
+        if (ready) {
+            return;
+        }
+        ready = true;
+        Duration sinceJvmStart = Duration.ofMillis(System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+        meterRegistry.timer("item.startup.ready").record(sinceJvmStart);
+        log.info("Ready to accept traffic {} ms after JVM start", sinceJvmStart.toMillis());
+    }
+
+    @Override
+    public Health health() {
+        if (ready) {
+            return Health.up().build();
+        }
+        return Health.outOfService().withDetail("pending", Set.copyOf(pending)).build();
+    }
+}
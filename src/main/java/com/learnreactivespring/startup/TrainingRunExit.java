@@ -0,0 +1,25 @@
+package com.learnreactivespring.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shuts the application down once it has started, for the AppCDS training run (./gradlew cdsArchive)
+ * that records the loaded classes on exit.
+ */
+@Component
+@ConditionalOnProperty("item.startup.exit-after-ready")
+@Slf4j
+public class TrainingRunExit {
+
+    @EventListener
+    public void exit(ApplicationReadyEvent event) {
+        log.info("Training run complete, exiting");
+        // exit off the main thread, which is still inside SpringApplication.run
+        new Thread(() -> System.exit(SpringApplication.exit(event.getApplicationContext())), "training-run-exit").start();
+    }
+}
@@ -0,0 +1,113 @@
+package com.learnreactivespring.startup;
+
+import com.learnreactivespring.config.WarmupProperties;
+import com.learnreactivespring.document.Item;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
+
+/**
+ * Drives read-only requests over loopback through the annotated and functional item routes, the
+ * web filters and the JSON codecs until each route has seen the configured number of calls, and
+ * only then lets {@link StartupHealthIndicator} report ready.
+ */
+@Component
+@Slf4j
+public class WarmupRunner {
+
+    static final String STEP = "warmup";
+
+    // id used when the collection is empty, which still warms the not-found path
+    private static final String MISSING_ID = "warmup";
+
+    private final WarmupProperties properties;
+    private final WarmupTrafficWebFilter warmupTrafficWebFilter;
+    private final StartupHealthIndicator startupHealthIndicator;
+    private final WebClient.Builder webClientBuilder;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public WarmupRunner(WarmupProperties properties, WarmupTrafficWebFilter warmupTrafficWebFilter,
+                        StartupHealthIndicator startupHealthIndicator, WebClient.Builder webClientBuilder,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.warmupTrafficWebFilter = warmupTrafficWebFilter;
+        this.startupHealthIndicator = startupHealthIndicator;
+        this.webClientBuilder = webClientBuilder;
+        this.meterRegistry = meterRegistry;
+        if (properties.isEnabled()) {
+            startupHealthIndicator.await(STEP);
+        }
+    }
+
+    @EventListener
+    public void warmup(ApplicationReadyEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int port = ((WebServerApplicationContext) event.getApplicationContext()).getWebServer().getPort();
+        WebClient webClient = webClientBuilder.clone()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader(WarmupTrafficWebFilter.TOKEN_HEADER, warmupTrafficWebFilter.token())
+                .build();
+        String listQuery = "?limit=" + properties.getListLimit();
+        long start = System.nanoTime();
+
+        firstItemId(webClient)
+                .flatMapMany(id -> Flux.concat(
+                        drive(webClient, ITEM_END_POINT + listQuery, spec -> spec.retrieve().bodyToFlux(Item.class).then()),
+                        drive(webClient, ITEM_FUNCTIONAL_END_POINT_V1 + listQuery, spec -> spec.retrieve().bodyToFlux(Item.class).then()),
+                        drive(webClient, ITEM_END_POINT + "/" + id, this::single),
+                        drive(webClient, ITEM_FUNCTIONAL_END_POINT_V1 + "/" + id, this::single)))
+                .then()
+                .timeout(properties.getMaxDuration())
+                .doFinally(signal -> {
+                    Duration duration = Duration.ofNanos(System.nanoTime() - start);
+                    meterRegistry.timer("item.warmup.duration").record(duration);
+                    log.info("Warmup finished ({}) in {} ms: {} calls, {} failed",
+                            signal, duration.toMillis(), calls.get(), failures.get());
+                    startupHealthIndicator.complete(STEP);
+                })
+                .subscribe(null, e -> log.warn("Warmup stopped before reaching {} requests per route", properties.getRequestsPerRoute(), e));
+    }
+
+    private Mono<String> firstItemId(WebClient webClient) {
+        return webClient.get().uri(ITEM_END_POINT + "?limit=1")
+                .retrieve()
+                .bodyToFlux(Item.class)
+                .next()
+                .map(Item::getId)
+                .defaultIfEmpty(MISSING_ID);
+    }
+
+    private Mono<Void> single(WebClient.RequestHeadersSpec<?> spec) {
+        // a 404 for the missing id is expected and still exercises the route
+        return spec.exchangeToMono(response -> response.bodyToMono(Item.class).then());
+    }
+
+    private Mono<Void> drive(WebClient webClient, String uri, Function<WebClient.RequestHeadersSpec<?>, Mono<Void>> call) {
+        return Flux.range(0, properties.getRequestsPerRoute())
+                .flatMap(i -> call.apply(webClient.get().uri(uri))
+                                .doOnSuccess(done -> calls.incrementAndGet())
+                                .onErrorResume(e -> {
+                                    failures.incrementAndGet();
+                                    return Mono.empty();
+                                }),
+                        properties.getConcurrency())
+                .then();
+    }
+}
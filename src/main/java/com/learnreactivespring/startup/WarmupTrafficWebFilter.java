@@ -0,0 +1,48 @@
+package com.learnreactivespring.startup;
+
+import com.learnreactivespring.config.WarmupProperties;
+import com.learnreactivespring.filter.RateLimitWebFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Recognises {@link WarmupRunner} requests by a token generated per process and exempts them from
+ * rate limiting, so warmup never competes with clients for their buckets. Admission control still applies.
+ */
+@Component
+public class WarmupTrafficWebFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = RateLimitWebFilter.ORDER - 1;
+
+    static final String TOKEN_HEADER = "X-Warmup-Token";
+
+    private final WarmupProperties properties;
+    private final String token = UUID.randomUUID().toString();
+
+    public WarmupTrafficWebFilter(WarmupProperties properties) {
+        this.properties = properties;
+    }
+
+    String token() {
+        return token;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (properties.isEnabled() && token.equals(exchange.getRequest().getHeaders().getFirst(TOKEN_HEADER))) {
+            exchange.getAttributes().put(RateLimitWebFilter.EXEMPT_ATTRIBUTE, Boolean.TRUE);
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
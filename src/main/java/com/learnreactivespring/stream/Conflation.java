@@ -0,0 +1,112 @@
+package com.learnreactivespring.stream;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Conflates a fast source for a slow subscriber: the source is drained eagerly, only the newest
+ * pending element per key is kept, and those are handed out as the subscriber requests more.
+ * Memory per subscriber is bounded by the number of distinct keys, not by the event rate.
+ */
+public final class Conflation {
+
+    private Conflation() {
+    }
+
+    public static <T, K> Flux<T> latestByKey(Flux<T> source, Function<? super T, ? extends K> keyExtractor) {
+        return Flux.create(sink -> {
+            ConflatingBuffer<T, K> buffer = new ConflatingBuffer<>(sink, keyExtractor);
+            sink.onRequest(n -> buffer.drain());
+            Disposable upstream = source.subscribe(buffer::offer, buffer::error, buffer::complete);
+            sink.onDispose(upstream);
+        }, FluxSink.OverflowStrategy.IGNORE); // demand is honoured by the drain loop, so no hidden buffer
+    }
+
+    private static final class ConflatingBuffer<T, K> {
+
+        private final FluxSink<T> sink;
+        private final Function<? super T, ? extends K> keyExtractor;
+        // insertion ordered: a key keeps its place in line when its value is replaced
+        private final LinkedHashMap<K, T> pending = new LinkedHashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        ConflatingBuffer(FluxSink<T> sink, Function<? super T, ? extends K> keyExtractor) {
+            this.sink = sink;
+            this.keyExtractor = keyExtractor;
+        }
+
+        void offer(T value) {
+            K key = keyExtractor.apply(value);
+            synchronized (pending) {
+                pending.put(key, value);
+            }
+            drain();
+        }
+
+        void error(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+
+        void complete() {
+            done = true;
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (; ; ) {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    T next = poll();
+                    if (next == null) {
+                        break;
+                    }
+                    sink.next(next);
+                }
+                if (done && isEmpty()) {
+                    Throwable throwable = error;
+                    if (throwable != null) {
+                        sink.error(throwable);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private T poll() {
+            synchronized (pending) {
+                Iterator<T> iterator = pending.values().iterator();
+                if (!iterator.hasNext()) {
+                    return null;
+                }
+                T next = iterator.next();
+                iterator.remove();
+                return next;
+            }
+        }
+
+        private boolean isEmpty() {
+            synchronized (pending) {
+                return pending.isEmpty();
+            }
+        }
+    }
+}
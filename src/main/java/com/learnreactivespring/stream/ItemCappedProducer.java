@@ -0,0 +1,149 @@
+package com.learnreactivespring.stream;
+
+import com.learnreactivespring.config.CappedProducerProperties;
+import com.learnreactivespring.document.ItemCapped;
+import com.learnreactivespring.initialize.CappedCollectionProvisioner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthetic load source for the tailable stream endpoints. Generates ItemCapped events at a
+ * configured rate and writes them to the capped collection in bulk inserts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "item.capped-producer", name = "enabled", havingValue = "true")
+@Slf4j
+public class ItemCappedProducer implements SmartLifecycle {
+
+    private final CappedProducerProperties properties;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final CappedCollectionProvisioner cappedCollectionProvisioner;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter inserted;
+    private final Counter batches;
+    private final Counter droppedTicks;
+    private final Counter droppedBatches;
+    private final Counter failedBatches;
+    private volatile Disposable subscription;
+
+    public ItemCappedProducer(CappedProducerProperties properties, ReactiveMongoOperations reactiveMongoOperations,
+                              CappedCollectionProvisioner cappedCollectionProvisioner, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.cappedCollectionProvisioner = cappedCollectionProvisioner;
+        this.inserted = meterRegistry.counter("item.capped.producer.inserted");
+        this.batches = meterRegistry.counter("item.capped.producer.batches");
+        this.droppedTicks = meterRegistry.counter("item.capped.producer.dropped.ticks");
+        this.droppedBatches = meterRegistry.counter("item.capped.producer.dropped.batches");
+        this.failedBatches = meterRegistry.counter("item.capped.producer.failed.batches");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        // inserting before the collection exists would create it uncapped
+        subscription = cappedCollectionProvisioner.ready()
+                .thenMany(Flux.defer(() -> {
+                    TickBudget budget = new TickBudget(properties.getEventsPerSecond(), properties.getTick());
+                    return Flux.interval(properties.getTick())
+                            // a tick that can't be served in time is skipped rather than queued
+                            .onBackpressureDrop(tick -> droppedTicks.increment())
+                            .concatMapIterable(tick -> generate(budget.next()));
+                }))
+                // bufferTimeout can't hold back a timed batch while every write slot is busy, so batches
+                // queue here and the newest are dropped once the writes fall that far behind
+                .bufferTimeout(properties.getBatchSize(), properties.getMaxBatchDelay())
+                .onBackpressureBuffer(properties.getMaxPendingBatches(), batch -> droppedBatches.increment(),
+                        BufferOverflowStrategy.DROP_LATEST)
+                .flatMap(this::insert, properties.getConcurrentWrites())
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("ItemCapped producer failed, restarting", signal.failure())))
+                .subscribe(null, e -> log.error("ItemCapped producer stopped", e));
+        log.info("ItemCapped producer started at {} events/s, batches of up to {}",
+                properties.getEventsPerSecond(), properties.getBatchSize());
+    }
+
+    private List<ItemCapped> generate(int count) {
+        List<ItemCapped> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long n = sequence.getAndIncrement();
+            events.add(new ItemCapped(null, "Random Item" + (n % properties.getDistinctDescriptions()), 100.00 + n % 1000));
+        }
+        return events;
+    }
+
+    /**
+     * Events to generate per tick for a rate, carrying the fraction over so any rate and tick
+     * length average out exactly.
+     */
+    static final class TickBudget {
+
+        private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+        // events times nanoseconds, so the arithmetic is exact
+        private final long perTick;
+        private long carry;
+
+        TickBudget(int eventsPerSecond, Duration tick) {
+            this.perTick = eventsPerSecond * tick.toNanos();
+        }
+
+        int next() {
+            carry += perTick;
+            long events = carry / NANOS_PER_SECOND;
+            carry -= events * NANOS_PER_SECOND;
+            return (int) events;
+        }
+    }
+
+    private Mono<Void> insert(List<ItemCapped> batch) {
+        return reactiveMongoOperations.insert(batch, ItemCapped.class)
+                .then()
+                .doOnSuccess(done -> {
+                    batches.increment();
+                    inserted.increment(batch.size());
+                })
+                .onErrorResume(e -> {
+                    failedBatches.increment();
+                    log.warn("Dropping batch of {} ItemCapped events: {}", batch.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isAutoStartup();
+    }
+
+    @Override
+    public synchronized void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+            subscription = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null && !subscription.isDisposed();
+    }
+}
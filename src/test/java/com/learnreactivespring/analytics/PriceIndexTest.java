@@ -0,0 +1,112 @@
+package com.learnreactivespring.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceIndexTest {
+
+    @Test
+    public void countsInclusiveRanges() {
+        PriceIndex index = index(10.0, 20.0, 20.0, 30.0, 40.0);
+
+        assertEquals(3, index.count(20.0, 30.0));
+        assertEquals(5, index.count(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+        assertEquals(0, index.count(31.0, 39.0));
+        assertEquals(0, index.count(30.0, 20.0));
+    }
+
+    @Test
+    public void topKFromBothEnds() {
+        PriceIndex index = index(30.0, 10.0, 40.0, 20.0);
+
+        List<PriceEntry> cheapest = index.cheapest(2);
+        assertEquals(List.of(new PriceEntry("id1", 10.0), new PriceEntry("id3", 20.0)), cheapest);
+        assertEquals(new PriceEntry("id2", 40.0), index.mostExpensive(1).get(0));
+        assertEquals(4, index.mostExpensive(10).size());
+    }
+
+    @Test
+    public void writesShowAfterRebuild() {
+        PriceIndex index = index(10.0, 20.0);
+        index.put("id0", 50.0);
+        index.remove("id1");
+        index.put("priceless", null);
+
+        assertEquals(1, index.count(10.0, 10.0));
+        assertTrue(index.rebuild());
+        assertFalse(index.rebuild());
+        assertEquals(0, index.count(10.0, 20.0));
+        assertEquals(1, index.count(50.0, 50.0));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void mergesDeltasLikeAFullSort() {
+        Random random = new Random(7);
+        PriceIndex index = new PriceIndex();
+        Map<String, Double> expected = new HashMap<>();
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 100; i++) {
+                String id = "id" + random.nextInt(500);
+                if (random.nextInt(4) == 0) {
+                    index.remove(id);
+                    expected.remove(id);
+                } else {
+                    double price = random.nextInt(200) / 4.0;
+                    index.put(id, price);
+                    expected.put(id, price);
+                }
+            }
+            index.rebuild();
+
+            double[] prices = expected.values().stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            List<PriceEntry> entries = index.cheapest(Integer.MAX_VALUE);
+            assertEquals(prices.length, entries.size());
+            for (int i = 0; i < prices.length; i++) {
+                PriceEntry entry = entries.get(i);
+                assertEquals(prices[i], entry.getPrice());
+                assertEquals(expected.get(entry.getId()), entry.getPrice());
+            }
+        }
+    }
+
+    @Test
+    public void sortsLikeArraysSort() {
+        Random random = new Random(42);
+        double[] prices = new double[10_000];
+        String[] ids = new String[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            // plenty of duplicates
+            prices[i] = random.nextInt(500) / 4.0;
+            ids[i] = Double.toString(prices[i]);
+        }
+        double[] expected = prices.clone();
+        Arrays.sort(expected);
+
+        PriceIndex.sort(prices, ids, 0, prices.length);
+
+        assertArrayEquals(expected, prices);
+        for (int i = 0; i < prices.length; i++) {
+            assertEquals(Double.toString(prices[i]), ids[i]);
+        }
+    }
+
+    private static PriceIndex index(double... prices) {
+        PriceIndex index = new PriceIndex();
+        for (int i = 0; i < prices.length; i++) {
+            index.put("id" + i, prices[i]);
+        }
+        index.rebuild();
+        return index;
+    }
+}
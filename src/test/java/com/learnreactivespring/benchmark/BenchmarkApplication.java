@@ -0,0 +1,61 @@
+package com.learnreactivespring.benchmark;
+
+import com.learnreactivespring.LearnReactivespringApplication;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.repository.ItemReactiveRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Boots the application on a random port against the embedded Mongo, with the request
+ * limiters switched off so they don't skew the numbers.
+ */
+public class BenchmarkApplication implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final WebClient webClient;
+
+    public BenchmarkApplication(String... properties) {
+        List<String> allProperties = new ArrayList<>(List.of(
+                "server.port=0",
+                "item.rate-limit.enabled=false",
+                "item.concurrency-limit.enabled=false"));
+        allProperties.addAll(List.of(properties));
+        this.context = new SpringApplicationBuilder(LearnReactivespringApplication.class)
+                .profiles("test")
+                .properties(allProperties.toArray(new String[0]))
+                .run();
+        int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+        this.webClient = WebClient.create("http://localhost:" + port);
+    }
+
+    public BenchmarkApplication seedItems(int count) {
+        ItemReactiveRepository repository = context.getBean(ItemReactiveRepository.class);
+        repository.deleteAll()
+                .thenMany(Flux.fromStream(IntStream.range(0, count)
+                        .mapToObj(i -> new Item(i == 0 ? "ABC" : null, "Item " + i, 100.0 + i))))
+                .flatMap(repository::save)
+                .blockLast();
+        return this;
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    public WebClient webClient() {
+        return webClient;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,61 @@
+package com.learnreactivespring.benchmark;
+
+import com.learnreactivespring.document.ItemCapped;
+import com.learnreactivespring.stream.ItemCappedProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_STREAM_END_POINT;
+
+/**
+ * Drives the capped collection with {@link ItemCappedProducer} and measures what a tailing
+ * subscriber of the stream endpoint receives, plain and conflated.
+ */
+public class CappedStreamBenchmark {
+
+    private static final int EVENTS_PER_SECOND = 5000;
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+
+    @Test
+    public void tailableStreamThroughput() {
+        try (BenchmarkApplication app = new BenchmarkApplication(
+                "item.capped-producer.enabled=true",
+                "item.capped-producer.auto-startup=false",
+                "item.capped-producer.events-per-second=" + EVENTS_PER_SECOND)) {
+            ReactiveMongoOperations mongoOperations = app.context().getBean(ReactiveMongoOperations.class);
+            mongoOperations.dropCollection(ItemCapped.class)
+                    .then(mongoOperations.createCollection(ItemCapped.class,
+                            CollectionOptions.empty().maxDocuments(100_000).size(64 * 1024 * 1024).capped()))
+                    // a tailable cursor on an empty capped collection dies immediately
+                    .then(mongoOperations.insert(new ItemCapped(null, "seed", 0.0)))
+                    .block();
+
+            app.context().getBean(ItemCappedProducer.class).start();
+
+            System.out.println(receive(app, ITEM_STREAM_END_POINT, "stream"));
+            System.out.println(receive(app, ITEM_STREAM_END_POINT + "?conflate=true", "conflated stream"));
+
+            MeterRegistry meterRegistry = app.context().getBean(MeterRegistry.class);
+            System.out.printf("produced %.0f events in %.0f bulk inserts%n",
+                    meterRegistry.counter("item.capped.producer.inserted").count(),
+                    meterRegistry.counter("item.capped.producer.batches").count());
+        }
+    }
+
+    private String receive(BenchmarkApplication app, String uri, String label) {
+        Long received = app.webClient().get().uri(uri)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .retrieve()
+                .bodyToFlux(ItemCapped.class)
+                .take(WINDOW)
+                .count()
+                .block();
+        return String.format("%-20s received %8d events in %s (%.0f events/s, producing %d/s)",
+                label, received, WINDOW, received / (double) WINDOW.getSeconds(), EVENTS_PER_SECOND);
+    }
+}
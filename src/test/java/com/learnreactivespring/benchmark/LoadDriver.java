@@ -0,0 +1,62 @@
+package com.learnreactivespring.benchmark;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Fires a fixed number of requests at a bounded concurrency and reports throughput and latency percentiles.
+ */
+public class LoadDriver {
+
+    public static Result run(String name, int requests, int concurrency, IntFunction<Mono<?>> request) {
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long requestStart = System.nanoTime();
+                    return request.apply(i)
+                            .doFinally(signal -> latencies[i] = System.nanoTime() - requestStart);
+                }, concurrency)
+                .blockLast();
+        return new Result(name, requests, System.nanoTime() - start, latencies);
+    }
+
+    public static Result get(String name, WebClient webClient, String uri, int requests, int concurrency) {
+        return run(name, requests, concurrency, i -> webClient.get().uri(uri).retrieve().toBodilessEntity());
+    }
+
+    public static class Result {
+        private final String name;
+        private final int requests;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        Result(String name, int requests, long elapsedNanos, long[] latencies) {
+            this.name = name;
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+        }
+
+        public double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        public double percentileMillis(double percentile) {
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile / 100 * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %10.0f req/s   p50 %8.2f ms   p99 %8.2f ms   p99.9 %8.2f ms",
+                    name, throughput(), percentileMillis(50), percentileMillis(99), percentileMillis(99.9));
+        }
+    }
+}
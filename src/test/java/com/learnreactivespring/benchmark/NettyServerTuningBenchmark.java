@@ -0,0 +1,44 @@
+package com.learnreactivespring.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
+
+/**
+ * Compares the item endpoints on default Reactor Netty settings against the tuned item.netty settings.
+ * Run with ./gradlew benchmark
+ */
+public class NettyServerTuningBenchmark {
+
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 256;
+
+    @Test
+    public void defaultsVersusTuned() {
+        List<LoadDriver.Result> results = new ArrayList<>();
+        results.addAll(measure("defaults"));
+        results.addAll(measure("tuned",
+                "item.netty.event-loop-threads=" + Runtime.getRuntime().availableProcessors(),
+                "item.netty.so-backlog=4096",
+                "item.netty.idle-timeout=60s",
+                "item.netty.allocator.enabled=true"));
+
+        results.forEach(System.out::println);
+    }
+
+    private List<LoadDriver.Result> measure(String label, String... properties) {
+        try (BenchmarkApplication app = new BenchmarkApplication(properties).seedItems(50)) {
+            // warm up the JIT before measuring
+            LoadDriver.get("warmup", app.webClient(), ITEM_END_POINT, REQUESTS / 4, CONCURRENCY);
+
+            return List.of(
+                    LoadDriver.get(label + " GET " + ITEM_END_POINT, app.webClient(), ITEM_END_POINT, REQUESTS, CONCURRENCY),
+                    LoadDriver.get(label + " GET " + ITEM_END_POINT + "/ABC", app.webClient(), ITEM_END_POINT + "/ABC", REQUESTS, CONCURRENCY),
+                    LoadDriver.get(label + " GET " + ITEM_FUNCTIONAL_END_POINT_V1, app.webClient(), ITEM_FUNCTIONAL_END_POINT_V1, REQUESTS, CONCURRENCY));
+        }
+    }
+}
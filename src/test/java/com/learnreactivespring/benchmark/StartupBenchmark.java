@@ -0,0 +1,137 @@
+package com.learnreactivespring.benchmark;
+
+import com.learnreactivespring.LearnReactivespringApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+
+/**
+ * Time from launching a fresh JVM to the first successful GET /v1/items, on the dev profile and on
+ * dev plus fast-startup, against an external Mongo (-Dbenchmark.mongodb.host and port, localhost:27017
+ * by default) so the embedded one's startup doesn't drown the difference. With
+ * -Dbenchmark.cds.options=build/cds/java-options (see ./gradlew cdsArchive) every variant runs on the
+ * archive's classpath, and fast-startup is also measured with the AppCDS archive.
+ * Run with ./gradlew benchmark
+ */
+public class StartupBenchmark {
+
+    private static final int RUNS = 5;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    public void timeToFirstResponse() throws Exception {
+        String cdsOptions = System.getProperty("benchmark.cds.options");
+        Map<String, String> options = cdsOptions != null ? readOptions(Path.of(cdsOptions)) : Map.of();
+        // the archive only matches the classpath it was trained on, so with it all variants run from the extracted boot jar
+        List<String> classpath = List.of("-cp", options.getOrDefault("-cp", System.getProperty("java.class.path")));
+        List<String> results = new ArrayList<>();
+        results.add(measure("defaults", classpath, "dev"));
+        results.add(measure("fast-startup", classpath, "dev,fast-startup"));
+        if (cdsOptions != null) {
+            List<String> withArchive = new ArrayList<>(classpath);
+            withArchive.add("-XX:SharedArchiveFile=" + options.get("-XX:SharedArchiveFile"));
+            results.add(measure("fast-startup + AppCDS", withArchive, "dev,fast-startup"));
+        }
+
+        results.forEach(System.out::println);
+    }
+
+    private String measure(String label, List<String> launchOptions, String profiles) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = timeToFirstResponse(launchOptions, profiles);
+        }
+        Arrays.sort(millis);
+        return String.format("%-24s runs=%d min=%dms median=%dms max=%dms",
+                label, RUNS, millis[0], millis[RUNS / 2], millis[RUNS - 1]);
+    }
+
+    private long timeToFirstResponse(List<String> launchOptions, String profiles) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(launchOptions);
+        command.add(LearnReactivespringApplication.class.getName());
+        command.add("--spring.profiles.active=" + profiles);
+        command.add("--spring.data.mongodb.host=" + System.getProperty("benchmark.mongodb.host", "localhost"));
+        command.add("--spring.data.mongodb.port=" + System.getProperty("benchmark.mongodb.port", "27017"));
+        // on the test classpath the embedded Mongo would otherwise start with every run
+        command.add("--spring.autoconfigure.exclude=" + EmbeddedMongoAutoConfiguration.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--item.rate-limit.enabled=false");
+        command.add("--item.concurrency-limit.enabled=false");
+        // BlockHound's instrumentation would dominate the startup time
+        command.add("--item.blocking-guard.enabled=false");
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + ITEM_END_POINT))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        File log = new File(System.getProperty("java.io.tmpdir"), "startup-benchmark.log");
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                if (succeeds(request)) {
+                    return Duration.ofNanos(System.nanoTime() - start).toMillis();
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful response within " + STARTUP_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private boolean succeeds(HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // the -cp and -XX:SharedArchiveFile lines written by ./gradlew cdsArchive
+    private static Map<String, String> readOptions(Path file) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            int separator = line.startsWith("-cp ") ? 3 : line.indexOf('=');
+            if (separator > 0) {
+                options.put(line.substring(0, separator), line.substring(separator + 1).trim().replace("\"", ""));
+            }
+        }
+        return options;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
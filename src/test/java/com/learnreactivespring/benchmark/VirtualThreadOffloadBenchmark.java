@@ -0,0 +1,42 @@
+package com.learnreactivespring.benchmark;
+
+import com.learnreactivespring.config.OffloadProperties;
+import com.learnreactivespring.scheduler.BlockingOffload;
+import com.learnreactivespring.scheduler.OffloadSchedulers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 10k concurrent blocking enrichments on bounded elastic versus thread-per-task virtual threads.
+ * Virtual threads need a Java 21 runtime: ./gradlew benchmark -PbenchmarkJavaHome=/path/to/jdk-21
+ */
+public class VirtualThreadOffloadBenchmark {
+
+    private static final int ENRICHMENTS = 10_000;
+    private static final long BLOCKING_CALL_MILLIS = 50;
+
+    @Test
+    public void boundedElasticVersusVirtualThreads() {
+        System.out.println(measure(OffloadProperties.Executor.BOUNDED_ELASTIC));
+        if (OffloadSchedulers.virtualThreadsAvailable()) {
+            System.out.println(measure(OffloadProperties.Executor.VIRTUAL_THREADS));
+        } else {
+            System.out.println("Virtual threads unavailable on Java " + System.getProperty("java.version"));
+        }
+    }
+
+    private LoadDriver.Result measure(OffloadProperties.Executor executor) {
+        OffloadProperties properties = new OffloadProperties();
+        properties.setExecutor(executor);
+        BlockingOffload offload = new BlockingOffload(properties, new SimpleMeterRegistry());
+        try {
+            return LoadDriver.run(executor.name() + " x" + ENRICHMENTS, ENRICHMENTS, ENRICHMENTS,
+                    i -> offload.call("enrichment", () -> {
+                        Thread.sleep(BLOCKING_CALL_MILLIS);
+                        return i;
+                    }));
+        } finally {
+            offload.destroy();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EncodedItemCacheTest {
+
+    private final EncodedItemCache cache = new EncodedItemCache(new CacheProperties(), new SimpleMeterRegistry());
+
+    @Test
+    public void keepsOneReadOnlyBodyPerMediaType() {
+        cache.put("abc", MediaType.APPLICATION_JSON, bytes("{\"id\":\"abc\"}"), cache.version());
+        cache.put("abc", MediaType.APPLICATION_NDJSON, bytes("{\"id\":\"abc\"}\n"), cache.version());
+
+        ByteBuffer json = cache.get("abc", MediaType.APPLICATION_JSON);
+        assertTrue(json.isReadOnly());
+        assertEquals("{\"id\":\"abc\"}", StandardCharsets.UTF_8.decode(json).toString());
+        // each get is an independent view
+        assertEquals(12, cache.get("abc", MediaType.APPLICATION_JSON).remaining());
+        assertEquals(13, cache.get("abc", MediaType.APPLICATION_NDJSON).remaining());
+
+        cache.onDeleted("abc");
+        assertNull(cache.get("abc", MediaType.APPLICATION_JSON));
+        assertNull(cache.get("abc", MediaType.APPLICATION_NDJSON));
+    }
+
+    @Test
+    public void dropsBodiesReadBeforeAnEviction() {
+        long version = cache.version();
+        cache.evict("abc");
+        cache.put("abc", MediaType.APPLICATION_JSON, bytes("{\"id\":\"abc\"}"), version);
+
+        assertNull(cache.get("abc", MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void evictingOtherItemsDoesNotDropBodies() {
+        long version = cache.version();
+        cache.evict("def");
+        cache.put("abc", MediaType.APPLICATION_JSON, bytes("{\"id\":\"abc\"}"), version);
+
+        assertEquals(12, cache.get("abc", MediaType.APPLICATION_JSON).remaining());
+    }
+
+    @Test
+    public void dropsBodiesReadBeforeEvictionsWereForgotten() {
+        CacheProperties properties = new CacheProperties();
+        properties.getEncoded().setMaxEntries(2);
+        EncodedItemCache small = new EncodedItemCache(properties, new SimpleMeterRegistry());
+        long version = small.version();
+        small.evict("abc");
+        small.evict("def");
+        small.evict("ghi");
+        small.put("abc", MediaType.APPLICATION_JSON, bytes("{\"id\":\"abc\"}"), version);
+        small.put("xyz", MediaType.APPLICATION_JSON, bytes("{\"id\":\"xyz\"}"), version);
+
+        assertNull(small.get("abc", MediaType.APPLICATION_JSON));
+        assertNull(small.get("xyz", MediaType.APPLICATION_JSON));
+        small.put("xyz", MediaType.APPLICATION_JSON, bytes("{\"id\":\"xyz\"}"), small.version());
+        assertEquals(12, small.get("xyz", MediaType.APPLICATION_JSON).remaining());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,27 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class HeapItemCacheTest {
+
+    @Test
+    public void evictsEntriesWrittenBeforeCutoff() throws InterruptedException {
+        HeapItemCache cache = new HeapItemCache(100);
+        cache.put(new Item("old", "Samsung TV", 400.0));
+        cache.put(new Item("refreshed", "Apple Watch", 299.99));
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        Thread.sleep(5);
+        cache.put(new Item("refreshed", "Apple Watch", 279.99));
+
+        cache.evictWrittenBefore(cutoff);
+
+        assertNull(cache.get("old"));
+        assertEquals(279.99, cache.get("refreshed").getPrice());
+        assertEquals(1, cache.size());
+    }
+}
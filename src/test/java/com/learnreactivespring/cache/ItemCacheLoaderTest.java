@@ -0,0 +1,49 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.document.Item;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ItemCacheLoaderTest {
+
+    private final HeapItemCache itemCache = new HeapItemCache(100);
+    private final ItemCacheLoader loader = new ItemCacheLoader(itemCache, new CacheProperties(), null);
+
+    @Test
+    public void skipsItemsChangedWhileLoading() {
+        Flux<Item> read = Flux.concat(
+                Flux.just(new Item("abc", "Samsung TV", 399.99)),
+                Mono.fromRunnable(() -> {
+                    loader.onDeleted("def");
+                    loader.onSaved(new Item("ghi", "Apple Watch", 279.99));
+                }),
+                Flux.just(new Item("def", "LG TV", 420.0), new Item("ghi", "Apple Watch", 299.99)));
+
+        StepVerifier.create(loader.load(read)).expectNextCount(3).verifyComplete();
+
+        assertEquals(399.99, itemCache.get("abc").getPrice());
+        assertNull(itemCache.get("def"));
+        assertEquals(279.99, itemCache.get("ghi").getPrice());
+    }
+
+    @Test
+    public void keepsTrackingUntilTheLastOverlappingLoadEnds() {
+        TestPublisher<Item> first = TestPublisher.create();
+        TestPublisher<Item> second = TestPublisher.create();
+        loader.load(first.flux()).subscribe();
+        loader.load(second.flux()).subscribe();
+
+        first.complete();
+        loader.onDeleted("abc");
+        second.emit(new Item("abc", "Samsung TV", 399.99));
+
+        assertNull(itemCache.get("abc"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.config.CacheProperties;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.document.ItemInvalidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ItemInvalidationBusTest {
+
+    private final CacheProperties properties = new CacheProperties();
+    private final HeapItemCache itemCache = new HeapItemCache(100);
+    // apply only touches the caches, the tail and publishing are not started here
+    private final ItemInvalidationBus bus = new ItemInvalidationBus(itemCache,
+            new EncodedItemCache(properties, new SimpleMeterRegistry()),
+            new ItemCacheLoader(itemCache, properties, null), properties, null, null, new SimpleMeterRegistry());
+
+    @Test
+    public void evictsItemsWrittenElsewhere() {
+        itemCache.put(new Item("abc", "Samsung TV", 399.99));
+
+        bus.apply(new ItemInvalidation("1", "abc", "other-instance", 0));
+
+        assertNull(itemCache.get("abc"));
+    }
+
+    @Test
+    public void ignoresClockSkewAndHeartbeats() {
+        itemCache.put(new Item("abc", "Samsung TV", 399.99));
+
+        // a publisher whose clock is far behind still counts, and heartbeats evict nothing
+        bus.apply(new ItemInvalidation("1", null, "other-instance", 0));
+        assertFalse(bus.lagging());
+        assertEquals("Samsung TV", itemCache.get("abc").getDescription());
+
+        bus.apply(new ItemInvalidation("2", "abc", "other-instance", 0));
+        assertNull(itemCache.get("abc"));
+    }
+
+    @Test
+    public void resumesAfterTheLastAppliedDocument() {
+        ItemInvalidationBus.Resume resume = new ItemInvalidationBus.Resume("2", "me", 1000);
+
+        assertFalse(resume.isNew(new ItemInvalidation("1", "a", "other", 5000)));
+        assertFalse(resume.isNew(new ItemInvalidation("2", "b", "other", 5000)));
+        assertTrue(resume.isNew(new ItemInvalidation("3", "c", "other", 0)));
+        assertFalse(resume.takeMissed());
+    }
+
+    @Test
+    public void ownHeartbeatEndsSkippingWhenTheResumePointWasOverwritten() {
+        ItemInvalidationBus.Resume resume = new ItemInvalidationBus.Resume("2", "me", 1000);
+
+        assertFalse(resume.isNew(new ItemInvalidation("5", "a", "other", 9000)));
+        // sent before the tail reopened, it may be older than the resume point
+        assertFalse(resume.isNew(new ItemInvalidation("6", null, "me", 999)));
+        assertTrue(resume.isNew(new ItemInvalidation("7", null, "me", 1000)));
+        assertTrue(resume.takeMissed());
+        assertTrue(resume.isNew(new ItemInvalidation("8", "b", "other", 0)));
+        assertFalse(resume.takeMissed());
+    }
+
+    @Test
+    public void freshTailAppliesEverything() {
+        ItemInvalidationBus.Resume resume = new ItemInvalidationBus.Resume(null, "me", 1000);
+
+        assertTrue(resume.isNew(new ItemInvalidation("1", "a", "other", 0)));
+    }
+}
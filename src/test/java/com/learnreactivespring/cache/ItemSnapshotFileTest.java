@@ -0,0 +1,116 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ItemSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Item> items = List.of(
+            new Item("abc", "Café TV", 399.99),
+            new Item("def", null, null),
+            new Item("ghi", "", 0.0));
+
+    @Test
+    public void roundTripsItems() throws IOException {
+        Path path = directory.resolve("items.snapshot");
+
+        assertEquals(3, ItemSnapshotFile.write(path, items));
+
+        List<Item> read = new ArrayList<>();
+        assertEquals(3, ItemSnapshotFile.read(path, read::add));
+        assertEquals(items, read);
+    }
+
+    @Test
+    public void recordsWhenItWasWritten() throws IOException {
+        Path path = directory.resolve("items.snapshot");
+        long before = System.currentTimeMillis();
+        ItemSnapshotFile.write(path, items);
+
+        long created = ItemSnapshotFile.createdMillis(path);
+        assertTrue(created >= before && created <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void replacesThePreviousSnapshot() throws IOException {
+        Path path = directory.resolve("items.snapshot");
+        ItemSnapshotFile.write(path, items);
+        ItemSnapshotFile.write(path, items.subList(0, 1));
+
+        List<Item> read = new ArrayList<>();
+        ItemSnapshotFile.read(path, read::add);
+        assertEquals(items.subList(0, 1), read);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void rejectsCorruptSnapshotsBeforeReadingItems() throws IOException {
+        Path path = directory.resolve("items.snapshot");
+        ItemSnapshotFile.write(path, items);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[20] ^= 1;
+        Files.write(path, bytes);
+
+        List<Item> read = new ArrayList<>();
+        IOException e = assertThrows(IOException.class, () -> ItemSnapshotFile.read(path, read::add));
+        assertTrue(e.getMessage().contains("checksum"));
+        assertTrue(read.isEmpty());
+    }
+
+    @Test
+    public void rejectsCountsThatDoNotMatchTheRecords() throws IOException {
+        Path path = directory.resolve("items.snapshot");
+        ItemSnapshotFile.write(path, items);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        int trailer = bytes.capacity() - 12;
+
+        // a corrupt count fails the checksum
+        bytes.putInt(trailer, 4);
+        Files.write(path, bytes.array());
+        assertTrue(assertThrows(IOException.class, () -> ItemSnapshotFile.read(path, item -> {
+        })).getMessage().contains("checksum"));
+
+        // and a checksummed one that doesn't match still hands out nothing
+        for (int count : new int[]{2, 4, -1}) {
+            bytes.putInt(trailer, count);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.array(), 16, trailer + 4 - 16);
+            bytes.putLong(trailer + 4, crc.getValue());
+            Files.write(path, bytes.array());
+
+            List<Item> read = new ArrayList<>();
+            IOException e = assertThrows(IOException.class, () -> ItemSnapshotFile.read(path, read::add));
+            assertTrue(e.getMessage().contains("count"));
+            assertTrue(read.isEmpty());
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Path path = directory.resolve("other");
+        Files.write(path, new byte[64]);
+
+        assertThrows(IOException.class, () -> ItemSnapshotFile.read(path, item -> {
+        }));
+        assertThrows(IOException.class, () -> ItemSnapshotFile.createdMillis(path));
+    }
+}
@@ -0,0 +1,152 @@
+package com.learnreactivespring.cache;
+
+import com.learnreactivespring.document.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapItemStoreTest {
+
+    @Test
+    public void roundTripsItems() {
+        OffHeapItemStore store = new OffHeapItemStore(4096, 1024, 100);
+        store.put(new Item("abc", "Café TV", 399.99));
+        store.put(new Item("def", null, null));
+
+        assertEquals(new Item("abc", "Café TV", 399.99), store.get("abc"));
+        assertEquals(new Item("def", null, null), store.get("def"));
+        assertNull(store.get("ghi"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void overwritesAndEvicts() {
+        OffHeapItemStore store = new OffHeapItemStore(4096, 1024, 100);
+        store.put(new Item("abc", "Samsung TV", 400.0));
+        store.put(new Item("abc", "Samsung TV", 350.0));
+        store.evict("missing");
+
+        assertEquals(350.0, store.get("abc").getPrice());
+        assertEquals(1, store.size());
+
+        store.evict("abc");
+        assertNull(store.get("abc"));
+        assertEquals(0, store.size());
+        assertEquals(0, store.usedBytes());
+    }
+
+    @Test
+    public void evictsEntriesWrittenBeforeCutoff() throws InterruptedException {
+        OffHeapItemStore store = new OffHeapItemStore(4096, 1024, 100);
+        store.put(new Item("old", "Samsung TV", 400.0));
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        Thread.sleep(5);
+        store.put(new Item("new", "LG TV", 420.0));
+
+        store.evictWrittenBefore(cutoff);
+
+        assertNull(store.get("old"));
+        assertEquals(new Item("new", "LG TV", 420.0), store.get("new"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void compactsOverwrittenRecordsWhenFull() {
+        // two segments of room for a handful of records each
+        OffHeapItemStore store = new OffHeapItemStore(512, 256, 100);
+        for (int i = 0; i < 200; i++) {
+            store.put(new Item("id" + (i % 3), "description " + i, (double) i));
+        }
+
+        assertEquals(3, store.size());
+        assertEquals(new Item("id0", "description 198", 198.0), store.get("id0"));
+        assertEquals(new Item("id1", "description 199", 199.0), store.get("id1"));
+        assertEquals(new Item("id2", "description 197", 197.0), store.get("id2"));
+    }
+
+    @Test
+    public void stopsAdmittingPastTheHighWaterMark() {
+        OffHeapItemStore store = new OffHeapItemStore(4096, 512, 1000);
+        int admitted = 0;
+        for (int i = 0; i < 200; i++) {
+            store.put(new Item("id" + i, "description " + i, (double) i));
+            if (store.get("id" + i) != null) {
+                admitted++;
+            }
+        }
+
+        assertTrue(admitted < 200);
+        assertEquals(admitted, store.size());
+        assertTrue(store.usedBytes() <= 4096 * 3 / 4);
+        // overwrites keep compacting below the mark
+        for (int i = 0; i < 1000; i++) {
+            store.put(new Item("id0", "description " + i, (double) i));
+        }
+        assertEquals(new Item("id0", "description 999", 999.0), store.get("id0"));
+        assertEquals(admitted, store.size());
+    }
+
+    @Test
+    public void stopsAdmittingWhenFull() {
+        OffHeapItemStore store = new OffHeapItemStore(1 << 20, 1 << 16, 2);
+        store.put(new Item("a", "first", 1.0));
+        store.put(new Item("b", "second", 2.0));
+        store.put(new Item("c", "third", 3.0));
+        store.put(new Item("a", "first again", 1.5));
+
+        assertNull(store.get("c"));
+        assertEquals("first again", store.get("a").getDescription());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void growsTheIndex() {
+        OffHeapItemStore store = new OffHeapItemStore(1 << 20, 1 << 16, 10_000);
+        for (int i = 0; i < 5_000; i++) {
+            store.put(new Item("item-" + i, "d", (double) i));
+        }
+        for (int i = 0; i < 5_000; i += 2) {
+            store.evict("item-" + i);
+        }
+
+        assertEquals(2_500, store.size());
+        assertEquals(4_999.0, store.get("item-4999").getPrice());
+        assertNull(store.get("item-4998"));
+        List<Item> all = store.all().collectList().block();
+        assertEquals(2_500, all.size());
+    }
+
+    @Test
+    public void readersNeverSeeTornRecords() {
+        OffHeapItemStore store = new OffHeapItemStore(2048, 512, 100);
+        AtomicBoolean done = new AtomicBoolean();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            // overwrites keep the log full, so this compacts constantly
+            for (int i = 0; i < 200_000; i++) {
+                store.put(new Item("id" + (i % 10), "price " + i, (double) i));
+            }
+            done.set(true);
+        });
+        CompletableFuture<Boolean> reader = CompletableFuture.supplyAsync(() -> {
+            while (!done.get()) {
+                for (int id = 0; id < 10; id++) {
+                    Item item = store.get("id" + id);
+                    if (item != null && !item.getDescription().equals("price " + item.getPrice().intValue())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+
+        writer.join();
+        assertTrue(reader.join());
+    }
+}
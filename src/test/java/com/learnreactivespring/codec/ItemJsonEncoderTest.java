@@ -0,0 +1,82 @@
+package com.learnreactivespring.codec;
+
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.document.ItemCapped;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ItemJsonEncoderTest {
+
+    private static final ResolvableType ITEM = ResolvableType.forClass(Item.class);
+
+    private final ItemJsonEncoder encoder = new ItemJsonEncoder();
+    private final Jackson2JsonEncoder jackson = new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+
+    private final List<Item> items = List.of(
+            new Item("abc", "Samsung TV", 399.99),
+            new Item("def", "Beats \"Headphones\"\\ \n\t\u0001", 149.0),
+            new Item("ghi", "Café € 😀", -0.0),
+            new Item(null, null, null),
+            new Item("jkl", "big", 1.5e12),
+            new Item("mno", "negative", -42.0),
+            new Item("pqr", "tiny", 0.0001),
+            new Item("stu", "nan", Double.NaN));
+
+    @Test
+    public void singleValuesMatchJackson() {
+        for (Item item : items) {
+            assertEquals(jackson(Mono.just(item), MediaType.APPLICATION_JSON), encode(Mono.just(item), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Test
+    public void arraysMatchJackson() {
+        assertEquals(jackson(Flux.fromIterable(items), MediaType.APPLICATION_JSON), encode(Flux.fromIterable(items), MediaType.APPLICATION_JSON));
+        assertEquals("[]", encode(Flux.empty(), MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void streamsAreNewlineDelimited() {
+        assertEquals(jackson(Flux.fromIterable(items), MediaType.APPLICATION_NDJSON), encode(Flux.fromIterable(items), MediaType.APPLICATION_NDJSON));
+    }
+
+    @Test
+    public void onlyHandlesItemTypes() {
+        assertTrue(encoder.canEncode(ITEM, MediaType.APPLICATION_JSON));
+        assertTrue(encoder.canEncode(ResolvableType.forClass(ItemCapped.class), MediaType.APPLICATION_NDJSON));
+        assertFalse(encoder.canEncode(ResolvableType.forClass(Object.class), MediaType.APPLICATION_JSON));
+        assertFalse(encoder.canEncode(ITEM, MediaType.APPLICATION_XML));
+    }
+
+    private String encode(org.reactivestreams.Publisher<Item> input, MimeType mimeType) {
+        return join(encoder.encode(input, new DefaultDataBufferFactory(), ITEM, mimeType, Collections.emptyMap()));
+    }
+
+    private String jackson(org.reactivestreams.Publisher<Item> input, MimeType mimeType) {
+        return join(jackson.encode(input, new DefaultDataBufferFactory(), ITEM, mimeType, Collections.emptyMap()));
+    }
+
+    private static String join(Flux<DataBuffer> buffers) {
+        DataBuffer joined = DataBufferUtils.join(buffers).block();
+        String json = joined.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(joined);
+        return json;
+    }
+}
@@ -0,0 +1,27 @@
+package com.learnreactivespring.config;
+
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MongoClientConfigTest {
+
+    @Test
+    public void publishesPoolAndCommandMetrics() {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+        new MongoClientConfig().mongoClientTuning(new MongoClientTuningProperties(), new SimpleMeterRegistry())
+                .customize(builder);
+        MongoClientSettings settings = builder.build();
+
+        assertTrue(settings.getConnectionPoolSettings().getConnectionPoolListeners().stream()
+                .anyMatch(MongoMetricsConnectionPoolListener.class::isInstance));
+        assertTrue(settings.getConnectionPoolSettings().getConnectionPoolListeners().stream()
+                .anyMatch(MongoPoolEventMetrics.class::isInstance));
+        assertTrue(settings.getCommandListeners().stream()
+                .anyMatch(MongoMetricsCommandListener.class::isInstance));
+    }
+}
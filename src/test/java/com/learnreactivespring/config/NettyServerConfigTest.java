@@ -0,0 +1,88 @@
+package com.learnreactivespring.config;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NettyServerConfigTest {
+
+    private DisposableServer server;
+
+    @BeforeEach
+    public void setUp() {
+        NettyServerProperties properties = new NettyServerProperties();
+        properties.setReadTimeout(Duration.ofMillis(300));
+        HttpServer httpServer = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/stream", (request, response) -> response.sendString(
+                                Flux.interval(Duration.ofMillis(100)).take(10).map(i -> i + "\n")))
+                        .post("/echo", (request, response) -> response.send(request.receive().retain())));
+        server = new NettyServerConfig().tune(httpServer, properties, null).bindNow();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.disposeNow();
+    }
+
+    @Test
+    public void streamOutlivesTheReadTimeout() {
+        List<String> lines = HttpClient.create()
+                .port(server.port())
+                .get()
+                .uri("/stream")
+                .responseContent()
+                .asString()
+                .flatMapIterable(chunk -> List.of(chunk.split("\n")))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(10, lines.size());
+    }
+
+    @Test
+    public void echoesACompleteBody() {
+        String body = HttpClient.create()
+                .port(server.port())
+                .post()
+                .uri("/echo")
+                .send(Flux.just(buffer("first"), buffer("second")).delayElements(Duration.ofMillis(100)))
+                .responseContent()
+                .aggregate()
+                .asString()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals("firstsecond", body);
+    }
+
+    @Test
+    public void stalledBodyTimesOut() {
+        assertThrows(Exception.class, () -> HttpClient.create()
+                .port(server.port())
+                .post()
+                .uri("/echo")
+                .send(Flux.just(buffer("first")).concatWith(Flux.never()))
+                .responseContent()
+                .aggregate()
+                .asString()
+                .block(Duration.ofSeconds(10)));
+    }
+
+    private static ByteBuf buffer(String value) {
+        return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+    }
+}
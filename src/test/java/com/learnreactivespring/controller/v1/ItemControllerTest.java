@@ -21,6 +21,7 @@ import reactor.test.StepVerifier;
 import java.util.Arrays;
 import java.util.List;
 
+import static com.learnreactivespring.constants.ItemConstants.ITEM_BULK_END_POINT;
 import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
 
 @SpringBootTest
@@ -65,6 +66,22 @@ public class ItemControllerTest {
     }
 
 
+    @Test
+    public void getAllItems_limited() {
+        webTestClient.get().uri(ITEM_END_POINT.concat("?limit=2"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void getAllItems_invalidLimit() {
+        webTestClient.get().uri(ITEM_END_POINT.concat("?limit=0"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void getAllItems_approach2() {
         webTestClient.get().uri(ITEM_END_POINT)
@@ -95,6 +112,33 @@ public class ItemControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void getAllItems_enriched() {
+        webTestClient.get().uri(ITEM_END_POINT.concat("?enrich=true"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(5)
+                .jsonPath("$[?(@.id == 'ABC')].description").isEqualTo("Boat Headphones")
+                .jsonPath("$[?(@.id == 'ABC')].enrichments.taxedPrice").isEqualTo(260.0)
+                .jsonPath("$[?(@.id == 'ABC')].enrichments.prices.EUR").isEqualTo(202.71);
+    }
+
+    @Test
+    public void getAllItems_enrichedAndLimited() {
+        webTestClient.get().uri(ITEM_END_POINT.concat("?enrich=true&limit=2"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].enrichments.taxedPrice").exists();
+
+        webTestClient.get().uri(ITEM_END_POINT.concat("?enrich=true&limit=0"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void getOneItem() {
         webTestClient.get().uri(ITEM_END_POINT.concat("/{id}"), "ABC")
@@ -167,4 +211,31 @@ public class ItemControllerTest {
                 .expectBody(String.class)
                 .isEqualTo("Runtime Exception occurred");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void saveItems() {
+        List<Item> items = Arrays.asList(new Item(null, "Bulk TV", 100.0), new Item("BULK", "Bulk Watch", 50.0));
+        webTestClient.post().uri(ITEM_BULK_END_POINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.fromIterable(items), Item.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .hasSize(2);
+
+        StepVerifier.create(itemReactiveRepository.count())
+                .expectNext(7L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void saveItems_elementTooLarge() {
+        String description = "x".repeat(32 * 1024);
+        webTestClient.put().uri(ITEM_BULK_END_POINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(new Item(null, description, 1.0)))
+                .exchange()
+                .expectStatus().isEqualTo(413)
+                .expectHeader().valueEquals("X-Error-Code", "ITEM-413");
+    }
+}
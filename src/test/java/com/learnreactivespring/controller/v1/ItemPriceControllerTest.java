@@ -0,0 +1,77 @@
+package com.learnreactivespring.controller.v1;
+
+import com.learnreactivespring.analytics.PriceRangeCount;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.repository.ItemReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_PRICES_END_POINT;
+
+@SpringBootTest(properties = {"item.price-index.enabled=true", "item.price-index.refresh-interval=10ms"})
+@DirtiesContext
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class ItemPriceControllerTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ItemReactiveRepository itemReactiveRepository;
+
+    @BeforeEach
+    public void setUp() {
+        itemReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    public void indexFollowsWrites() throws InterruptedException {
+        // well above any seeded items the initial load may have picked up
+        for (double price : new double[]{100005.0, 100015.0, 100025.0}) {
+            webTestClient.post().uri(ITEM_END_POINT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new Item(null, "Priced " + price, price)), Item.class)
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+        // the index is rebuilt on a timer, so wait for it rather than for a fixed time
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!rangeCountIs(2) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        webTestClient.get().uri(ITEM_PRICES_END_POINT + "?min=100010&max=100030")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2);
+
+        webTestClient.get().uri(ITEM_PRICES_END_POINT + "/most-expensive?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].price").isEqualTo(100025.0);
+    }
+
+    private boolean rangeCountIs(int count) {
+        PriceRangeCount rangeCount = webTestClient.get().uri(ITEM_PRICES_END_POINT + "?min=100010&max=100030")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PriceRangeCount.class)
+                .returnResult()
+                .getResponseBody();
+        return rangeCount != null && rangeCount.getCount() == count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.learnreactivespring.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ErrorRendererTest {
+
+    private final ErrorRenderer errorRenderer = new ErrorRenderer();
+
+    @Test
+    public void knownExceptionWithDefaultMessageReusesPrecomputedResponse() {
+        ErrorResponse response = errorRenderer.render(new ItemServiceException(ErrorCode.NOT_FOUND));
+
+        assertSame(ErrorCode.NOT_FOUND.defaultResponse(), response);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatus());
+        assertEquals("ITEM-404", response.getCode());
+    }
+
+    @Test
+    public void knownExceptionHasNoStackTrace() {
+        assertEquals(0, new ItemServiceException(ErrorCode.SERVICE_UNAVAILABLE).getStackTrace().length);
+    }
+
+    @Test
+    public void responseStatusExceptionKeepsItsStatus() {
+        ErrorResponse response = errorRenderer.render(new ResponseStatusException(HttpStatus.METHOD_NOT_ALLOWED));
+
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, response.getStatus());
+        assertEquals("ITEM-400", response.getCode());
+        assertSame(response, errorRenderer.render(new ResponseStatusException(HttpStatus.METHOD_NOT_ALLOWED)));
+    }
+
+    @Test
+    public void unknownExceptionReturnsItsMessage() {
+        ErrorResponse response = errorRenderer.render(new RuntimeException("Runtime Exception occurred"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatus());
+        assertEquals("ITEM-500", response.getCode());
+        assertEquals("Runtime Exception occurred", new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package com.learnreactivespring.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void rejectsOnceLimitIsReached() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, THRESHOLD, 0.5);
+
+        assertTrue(limiter.tryAcquire(1.0));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertFalse(limiter.tryAcquire(1.0));
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void writesAreShedBeforeReads() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, THRESHOLD, 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(0.5));
+        }
+        assertFalse(limiter.tryAcquire(0.5));
+        assertTrue(limiter.tryAcquire(1.0));
+    }
+
+    @Test
+    public void slowResponsesShrinkTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 10, THRESHOLD, 0.5);
+        long start = System.nanoTime() + 1;
+
+        limiter.tryAcquire(1.0);
+        limiter.release(start, start + THRESHOLD * 2);
+        assertEquals(5.0, limiter.getLimit());
+
+        // started after the first cut
+        start += THRESHOLD * 3;
+        limiter.tryAcquire(1.0);
+        limiter.release(start, start + THRESHOLD * 2);
+        assertEquals(4.0, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void aBurstOfSlowResponsesCutsOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 1, 100, THRESHOLD, 0.5);
+        long start = System.nanoTime() + 1;
+
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire(1.0);
+        }
+        for (int i = 0; i < 20; i++) {
+            limiter.release(start + i, start + THRESHOLD * 2 + i);
+        }
+        assertEquals(50.0, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void fastResponsesGrowTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, THRESHOLD, 0.5);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.release(start, start + THRESHOLD / 2);
+        }
+        assertEquals(5.0, limiter.getLimit());
+    }
+}
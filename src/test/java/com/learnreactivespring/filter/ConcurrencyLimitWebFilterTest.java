@@ -0,0 +1,50 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConcurrencyLimitWebFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void shedsAnOverloadAndCutsTheLimitOncePerBurst() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setLatencyThreshold(Duration.ofMillis(100));
+        properties.setBackoffRatio(0.5);
+        ConcurrencyLimitProperties.RouteLimit limit = new ConcurrencyLimitProperties.RouteLimit();
+        limit.setInitialLimit(20);
+        limit.setMinLimit(1);
+        properties.setRoutes(Map.of("/v1/items", limit));
+        ConcurrencyLimitWebFilter filter = new ConcurrencyLimitWebFilter(properties, meterRegistry);
+
+        // 40 requests at once against a limit of 20, each answered too slowly
+        List<MockServerWebExchange> exchanges = Flux.range(0, 40)
+                .map(i -> MockServerWebExchange.from(MockServerHttpRequest.get("/v1/items")))
+                .collectList()
+                .block();
+        List<HttpStatus> statuses = Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, e -> Mono.delay(Duration.ofMillis(200)).then())
+                        .then(Mono.fromSupplier(() -> exchange.getResponse().getStatusCode() == null
+                                ? HttpStatus.OK : exchange.getResponse().getStatusCode())))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(20, statuses.stream().filter(HttpStatus.OK::equals).count());
+        assertEquals(20, statuses.stream().filter(HttpStatus.SERVICE_UNAVAILABLE::equals).count());
+        assertEquals(10.0, meterRegistry.get("item.concurrency.limit").gauge().value());
+        assertEquals(0.0, meterRegistry.get("item.concurrency.inflight").gauge().value());
+    }
+}
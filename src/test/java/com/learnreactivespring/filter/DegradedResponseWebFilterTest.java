@@ -0,0 +1,41 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.ResilienceProperties;
+import com.learnreactivespring.resilience.ItemStoreResilience;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DegradedResponseWebFilterTest {
+
+    private final DegradedResponseWebFilter filter = new DegradedResponseWebFilter(new ResilienceProperties());
+
+    @Test
+    public void marksResponsesServedFromTheFallback() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/items"));
+        filter.filter(exchange, e -> Mono.deferContextual(context -> {
+            context.<AtomicBoolean>get(ItemStoreResilience.DEGRADED_CONTEXT_KEY).set(true);
+            return e.getResponse().setComplete();
+        })).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertEquals(DegradedResponseWebFilter.STALE_WARNING, headers.getFirst(HttpHeaders.WARNING));
+        assertEquals("no-store", headers.getCacheControl());
+    }
+
+    @Test
+    public void leavesOtherResponsesAlone() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/items"));
+        filter.filter(exchange, e -> e.getResponse().setComplete()).block();
+
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.WARNING));
+        assertNull(exchange.getResponse().getHeaders().getCacheControl());
+    }
+}
@@ -0,0 +1,86 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.cache.EncodedItemCache;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.repository.ItemReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = "item.cache.encoded.enabled=true")
+@DirtiesContext
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class ItemResponseCacheWebFilterTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ItemReactiveRepository itemReactiveRepository;
+
+    @Autowired
+    EncodedItemCache encodedItemCache;
+
+    @BeforeEach
+    public void setUp() {
+        encodedItemCache.clear();
+        itemReactiveRepository.deleteAll()
+                .then(itemReactiveRepository.save(new Item("encoded1", "Samsung TV", 400.0)))
+                .block();
+    }
+
+    @Test
+    public void servesEncodedBodyUntilWritten() {
+        getOne(ITEM_END_POINT + "/encoded1", 400.0);
+        assertNotNull(encodedItemCache.get("encoded1", MediaType.APPLICATION_JSON));
+
+        // bypasses ItemService, so the cached body is still served
+        itemReactiveRepository.save(new Item("encoded1", "Samsung TV", 350.0)).block();
+        getOne(ITEM_END_POINT + "/encoded1", 400.0);
+        getOne(ITEM_FUNCTIONAL_END_POINT_V1 + "/encoded1", 400.0);
+
+        webTestClient.put().uri(ITEM_END_POINT + "/encoded1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new Item(null, "Samsung TV", 300.0)), Item.class)
+                .exchange()
+                .expectStatus().isOk();
+        assertNull(encodedItemCache.get("encoded1", MediaType.APPLICATION_JSON));
+        getOne(ITEM_END_POINT + "/encoded1", 300.0);
+    }
+
+    @Test
+    public void doesNotKeepOtherRoutesOrMisses() {
+        webTestClient.get().uri(ITEM_END_POINT + "/missing")
+                .exchange()
+                .expectStatus().isNotFound();
+        assertNull(encodedItemCache.get("missing", MediaType.APPLICATION_JSON));
+
+        webTestClient.get().uri(ITEM_END_POINT + "/prices")
+                .exchange()
+                .expectStatus().is4xxClientError();
+        assertNull(encodedItemCache.get("prices", MediaType.APPLICATION_JSON));
+    }
+
+    private void getOne(String uri, double price) {
+        webTestClient.get().uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.price").isEqualTo(price);
+    }
+}
@@ -0,0 +1,123 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.repository.ItemReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "item.http-cache.policies.[/v1/items].max-age=1s",
+        "item.http-cache.policies.[/v1/items].stale-while-revalidate=10s",
+        "item.http-cache.policies.[/v1/items].stale-if-error=5m",
+        "item.http-cache.policies.[/v1/items/{id}].max-age=30s",
+        "item.http-cache.list-cache.enabled=true",
+        "item.http-cache.list-cache.ttl=1s",
+        "item.http-cache.list-cache.stale-while-revalidate=1h",
+        "item.http-cache.list-cache.max-entries=2"})
+@DirtiesContext
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class ListResponseCacheWebFilterTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ItemReactiveRepository itemReactiveRepository;
+
+    @BeforeEach
+    public void setUp() {
+        itemReactiveRepository.deleteAll()
+                .thenMany(itemReactiveRepository.saveAll(List.of(
+                        new Item("cache1", "Samsung TV", 400.0),
+                        new Item("cache2", "LG TV", 420.0))))
+                .blockLast();
+    }
+
+    @Test
+    public void addsCacheControlPerRoute() {
+        webTestClient.get().uri(ITEM_END_POINT)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL,
+                        "max-age=1, public, stale-if-error=300, stale-while-revalidate=10");
+
+        webTestClient.get().uri(ITEM_END_POINT + "/cache1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=30, public");
+
+        webTestClient.get().uri(ITEM_END_POINT + "/missing")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().doesNotExist(HttpHeaders.CACHE_CONTROL);
+    }
+
+    @Test
+    public void servesCachedListUntilRefreshed() {
+        String uri = ITEM_FUNCTIONAL_END_POINT_V1 + "?test=refresh";
+        assertEquals(2, list(uri).size());
+
+        itemReactiveRepository.deleteById("cache1").block();
+        assertEquals(2, list(uri).size());
+
+        webTestClient.get().uri(uri)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class).hasSize(1);
+    }
+
+    @Test
+    public void servesStaleListWhileRevalidating() throws InterruptedException {
+        String uri = ITEM_END_POINT + "?test=stale";
+        assertEquals(2, list(uri).size());
+
+        itemReactiveRepository.deleteById("cache1").block();
+        Thread.sleep(1100);
+
+        // the stale list answers the request that starts the refresh
+        assertEquals(2, list(uri).size());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list(uri).size() != 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, list(uri).size());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedListBeyondMaxEntries() {
+        String first = ITEM_FUNCTIONAL_END_POINT_V1 + "?test=lru-first";
+        String second = ITEM_FUNCTIONAL_END_POINT_V1 + "?test=lru-second";
+        list(first);
+        list(second);
+        list(first);
+        list(ITEM_FUNCTIONAL_END_POINT_V1 + "?test=lru-third");
+
+        itemReactiveRepository.deleteById("cache1").block();
+        assertEquals(2, list(first).size());
+        assertEquals(1, list(second).size());
+    }
+
+    private List<Item> list(String uri) {
+        return webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,114 @@
+package com.learnreactivespring.filter;
+
+import com.learnreactivespring.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RateLimitWebFilterTest {
+
+    @Test
+    public void newKeysShareTheOverflowBucketOnceFull() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(1);
+        properties.setRefillPerSecond(1);
+        properties.setMaxKeys(2);
+        properties.setOverflowBuckets(1);
+        properties.setPaths(List.of("/v1/"));
+        RateLimitWebFilter filter = new RateLimitWebFilter(properties);
+        try {
+            assertNull(status(filter, "a"));
+            assertNull(status(filter, "b"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(filter, "a"));
+            // the map is full, so c and d draw on the same bucket
+            assertNull(status(filter, "c"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(filter, "d"));
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void overflowKeysDrainOnlyTheirOwnBucket() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(1);
+        properties.setRefillPerSecond(1);
+        properties.setMaxKeys(2);
+        properties.setOverflowBuckets(64);
+        properties.setPaths(List.of("/v1/"));
+        RateLimitWebFilter filter = new RateLimitWebFilter(properties);
+        try {
+            assertNull(status(filter, "a"));
+            assertNull(status(filter, "b"));
+            assertNull(status(filter, "c"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(filter, "c"));
+            // a key hashed onto another overflow bucket still has its budget
+            String other = "d";
+            for (int i = 0; RateLimitWebFilter.overflowSlot(other, 64) == RateLimitWebFilter.overflowSlot("c", 64); i++) {
+                other = "d" + i;
+            }
+            assertNull(status(filter, other));
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void keysAnonymousClientsByAddress() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(1);
+        properties.setRefillPerSecond(1);
+        properties.setPaths(List.of("/v1/"));
+        RateLimitWebFilter filter = new RateLimitWebFilter(properties);
+        try {
+            assertNull(anonymousStatus(filter, "10.0.0.1"));
+            assertNull(anonymousStatus(filter, "10.0.0.2"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, anonymousStatus(filter, "10.0.0.1"));
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void skipsExemptExchanges() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(1);
+        properties.setRefillPerSecond(1);
+        properties.setPaths(List.of("/v1/"));
+        RateLimitWebFilter filter = new RateLimitWebFilter(properties);
+        try {
+            for (int i = 0; i < 3; i++) {
+                MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/items").header("X-API-Key", "a"));
+                exchange.getAttributes().put(RateLimitWebFilter.EXEMPT_ATTRIBUTE, Boolean.TRUE);
+                filter.filter(exchange, e -> e.getResponse().setComplete()).block();
+                assertNull(exchange.getResponse().getStatusCode());
+                assertNull(exchange.getResponse().getHeaders().getFirst(RateLimitWebFilter.LIMIT_HEADER));
+            }
+            assertNull(status(filter, "a"));
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    private static HttpStatus status(RateLimitWebFilter filter, String apiKey) {
+        return status(filter, MockServerHttpRequest.get("/v1/items").header("X-API-Key", apiKey));
+    }
+
+    private static HttpStatus anonymousStatus(RateLimitWebFilter filter, String address) {
+        return status(filter, MockServerHttpRequest.get("/v1/items").remoteAddress(new InetSocketAddress(address, 40000)));
+    }
+
+    private static HttpStatus status(RateLimitWebFilter filter, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, e -> e.getResponse().setComplete()).block();
+        // the chain leaves the status unset for admitted requests
+        return exchange.getResponse().getStatusCode();
+    }
+}
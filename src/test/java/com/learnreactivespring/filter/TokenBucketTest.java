@@ -0,0 +1,43 @@
+package com.learnreactivespring.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void allowsBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(3, INTERVAL, 0);
+
+        assertEquals(2, bucket.tryTake(0));
+        assertEquals(1, bucket.tryTake(0));
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(-INTERVAL, bucket.tryTake(0));
+    }
+
+    @Test
+    public void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(1, INTERVAL, 0);
+
+        assertEquals(0, bucket.tryTake(0));
+        assertTrue(bucket.tryTake(INTERVAL / 2) < 0);
+        assertEquals(0, bucket.tryTake(INTERVAL));
+    }
+
+    @Test
+    public void bucketIsIdleOnceFullForLongEnough() {
+        TokenBucket bucket = new TokenBucket(2, INTERVAL, 0);
+        bucket.tryTake(0);
+
+        assertEquals(INTERVAL, bucket.nanosUntilFull(0));
+        assertFalse(bucket.isIdle(INTERVAL, INTERVAL));
+        assertTrue(bucket.isIdle(INTERVAL * 3, INTERVAL));
+    }
+}
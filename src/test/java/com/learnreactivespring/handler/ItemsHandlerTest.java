@@ -21,6 +21,7 @@ import reactor.test.StepVerifier;
 import java.util.Arrays;
 import java.util.List;
 
+import static com.learnreactivespring.constants.ItemConstants.ITEM_BULK_FUNCTIONAL_END_POINT_V1;
 import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
 import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
 
@@ -65,6 +66,22 @@ public class ItemsHandlerTest {
                 .hasSize(5);
     }
 
+    @Test
+    public void getAllItems_limited() {
+        webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1.concat("?limit=2"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void getAllItems_invalidLimit() {
+        webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1.concat("?limit=0"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void getAllItems_approach2() {
         webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1)
@@ -95,6 +112,33 @@ public class ItemsHandlerTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void getAllItems_enriched() {
+        webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1.concat("?enrich=true"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(5)
+                .jsonPath("$[?(@.id == 'ABC')].description").isEqualTo("Boat Headphones")
+                .jsonPath("$[?(@.id == 'ABC')].enrichments.taxedPrice").isEqualTo(260.0)
+                .jsonPath("$[?(@.id == 'ABC')].enrichments.prices.EUR").isEqualTo(202.71);
+    }
+
+    @Test
+    public void getAllItems_enrichedAndLimited() {
+        webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1.concat("?enrich=true&limit=2"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].enrichments.taxedPrice").exists();
+
+        webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1.concat("?enrich=true&limit=0"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void getOneItem() {
         webTestClient.get().uri(ITEM_FUNCTIONAL_END_POINT_V1.concat("/{id}"), "ABC")
@@ -167,4 +211,24 @@ public class ItemsHandlerTest {
                 .expectBody()
                 .jsonPath("$.message", "Runtime Exception occurred");
     }
+
+    @Test
+    public void saveItems() {
+        webTestClient.post().uri(ITEM_BULK_FUNCTIONAL_END_POINT_V1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"description\":\"Bulk TV\",\"price\":100.0},{\"id\":\"BULK\",\"description\":\"Bulk Watch\",\"price\":50.0}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Item.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void saveItems_malformed() {
+        webTestClient.post().uri(ITEM_BULK_FUNCTIONAL_END_POINT_V1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"description\":")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
 }
@@ -0,0 +1,195 @@
+package com.learnreactivespring.idempotency;
+
+import com.learnreactivespring.document.IdempotencyRecord;
+import com.learnreactivespring.document.Item;
+import com.learnreactivespring.exception.ErrorCode;
+import com.learnreactivespring.exception.ItemServiceException;
+import com.learnreactivespring.repository.IdempotencyRecordRepository;
+import com.learnreactivespring.repository.ItemReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static com.learnreactivespring.constants.ItemConstants.IDEMPOTENCY_KEY_HEADER;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_END_POINT;
+import static com.learnreactivespring.constants.ItemConstants.ITEM_FUNCTIONAL_END_POINT_V1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "item.idempotency.enabled=true")
+@DirtiesContext
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class IdempotencyStoreTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ItemReactiveRepository itemReactiveRepository;
+
+    @Autowired
+    IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    public void setUp() {
+        itemReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    public void retriedCreateReturnsTheFirstItem() {
+        String key = UUID.randomUUID().toString();
+        Item first = create(ITEM_END_POINT, key, new Item(null, "Samsung TV", 400.0));
+        Item retried = create(ITEM_END_POINT, key, new Item(null, "Samsung TV", 400.0));
+
+        assertEquals(first, retried);
+        assertEquals(1L, itemReactiveRepository.count().block());
+        assertEquals(first, idempotencyRecordRepository.findById(key).block().getResponse());
+    }
+
+    @Test
+    public void concurrentDuplicatesShareOneCreate() {
+        String key = UUID.randomUUID().toString();
+        List<Item> created = Flux.range(0, 8)
+                .flatMap(i -> Mono.fromCallable(() -> create(ITEM_FUNCTIONAL_END_POINT_V1, key, new Item(null, "LG TV", 420.0)))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .collectList()
+                .block();
+
+        assertNotNull(created);
+        assertEquals(1, created.stream().distinct().count());
+        assertEquals(1L, itemReactiveRepository.count().block());
+    }
+
+    @Test
+    public void reusingAKeyForAnotherItemIsRejected() {
+        String key = UUID.randomUUID().toString();
+        create(ITEM_END_POINT, key, new Item(null, "Apple Watch", 299.99));
+
+        webTestClient.post().uri(ITEM_END_POINT)
+                .header(IDEMPOTENCY_KEY_HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new Item(null, "Beats HeadPhones", 149.99)), Item.class)
+                .exchange()
+                .expectStatus().isEqualTo(422);
+        assertEquals(1L, itemReactiveRepository.count().block());
+    }
+
+    @Test
+    public void reservationsAreTakenOverOnceTheirLeaseRunsOut() {
+        String held = UUID.randomUUID().toString();
+        String lapsed = UUID.randomUUID().toString();
+        Item item = new Item(null, "Samsung TV", 400.0);
+        Date inAMinute = new Date(System.currentTimeMillis() + 60_000);
+        Date aMinuteAgo = new Date(System.currentTimeMillis() - 60_000);
+        idempotencyRecordRepository.insert(new IdempotencyRecord(held, IdempotencyStore.digest(item), null, inAMinute, inAMinute)).block();
+        idempotencyRecordRepository.insert(new IdempotencyRecord(lapsed, IdempotencyStore.digest(item), null, aMinuteAgo, aMinuteAgo)).block();
+
+        webTestClient.post().uri(ITEM_END_POINT)
+                .header(IDEMPOTENCY_KEY_HEADER, held)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(item), Item.class)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        Item created = create(ITEM_END_POINT, lapsed, item);
+
+        IdempotencyRecord record = idempotencyRecordRepository.findById(lapsed).block();
+        assertEquals(created, record.getResponse());
+        assertNull(record.getLockedUntil());
+        assertTrue(record.getExpiresAt().after(inAMinute));
+        assertEquals(1L, itemReactiveRepository.count().block());
+    }
+
+    @Test
+    public void storeFailuresKeepTheKeyHeldAndOtherFailuresReleaseIt() {
+        String timedOut = UUID.randomUUID().toString();
+        String rejected = UUID.randomUUID().toString();
+        Item item = new Item(null, "Samsung TV", 400.0);
+
+        StepVerifier.create(idempotencyStore.execute(timedOut, item,
+                        () -> Mono.error(new ItemServiceException(ErrorCode.SERVICE_UNAVAILABLE))))
+                .expectError(ItemServiceException.class)
+                .verify();
+        StepVerifier.create(idempotencyStore.execute(rejected, item, () -> Mono.error(new IllegalArgumentException())))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        assertNotNull(idempotencyRecordRepository.findById(timedOut).block().getLockedUntil());
+        assertNull(idempotencyRecordRepository.findById(rejected).block());
+    }
+
+    @Test
+    public void anAttemptThatLostItsLeaseDoesNotStoreItsItem() {
+        String key = UUID.randomUUID().toString();
+        Item item = new Item("lease", "Samsung TV", 400.0);
+        Date takenOver = new Date(System.currentTimeMillis() + 60_000);
+
+        StepVerifier.create(idempotencyStore.execute(key, item, () -> idempotencyRecordRepository.findById(key)
+                        .flatMap(record -> {
+                            record.setLockedUntil(takenOver);
+                            return idempotencyRecordRepository.save(record);
+                        })
+                        .thenReturn(item)))
+                .expectNext(item)
+                .verifyComplete();
+
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key).block();
+        assertNull(record.getResponse());
+        assertEquals(takenOver, record.getLockedUntil());
+    }
+
+    @Test
+    public void digestsTellItemsApart() {
+        assertEquals(IdempotencyStore.digest(new Item(null, "Samsung TV", 400.0)),
+                IdempotencyStore.digest(new Item(null, "Samsung TV", 400.0)));
+        assertNotEquals(IdempotencyStore.digest(new Item(null, "Samsung TV", 400.0)),
+                IdempotencyStore.digest(new Item(null, "Samsung TV", 400.01)));
+        assertNotEquals(IdempotencyStore.digest(new Item("a", "b", null)),
+                IdempotencyStore.digest(new Item(null, "ab", null)));
+    }
+
+    @Test
+    public void createsWithoutAKeyAreNotDeduplicated() {
+        create(ITEM_END_POINT, null, new Item(null, "Samsung TV", 400.0));
+        create(ITEM_END_POINT, null, new Item(null, "Samsung TV", 400.0));
+
+        assertEquals(2L, itemReactiveRepository.count().block());
+    }
+
+    private Item create(String uri, String key, Item item) {
+        return webTestClient.post().uri(uri)
+                .headers(headers -> {
+                    if (key != null) {
+                        headers.set(IDEMPOTENCY_KEY_HEADER, key);
+                    }
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(Mono.just(item), Item.class)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Item.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,46 @@
+package com.learnreactivespring.initialize;
+
+import com.learnreactivespring.config.CappedCollectionProperties;
+import com.learnreactivespring.document.ItemCapped;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@DirtiesContext
+public class CappedCollectionProvisionerTest {
+
+    @Autowired
+    ReactiveMongoOperations reactiveMongoOperations;
+
+    private final CappedCollectionProperties properties = new CappedCollectionProperties();
+
+    @BeforeEach
+    public void setUp() {
+        reactiveMongoOperations.dropCollection(ItemCapped.class).block();
+    }
+
+    @Test
+    public void createsAMissingCollection() {
+        CappedCollectionProvisioner provisioner = new CappedCollectionProvisioner(properties, reactiveMongoOperations);
+
+        StepVerifier.create(provisioner.ready()).verifyComplete();
+        assertTrue(reactiveMongoOperations.collectionExists(ItemCapped.class).block());
+    }
+
+    @Test
+    public void checksACollectionAnotherInstanceCreatedFirst() {
+        CappedCollectionProvisioner provisioner = new CappedCollectionProvisioner(properties, reactiveMongoOperations);
+        reactiveMongoOperations.createCollection(ItemCapped.class, CollectionOptions.empty().size(4096).capped()).block();
+
+        StepVerifier.create(provisioner.create(reactiveMongoOperations.getCollectionName(ItemCapped.class)))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,93 @@
+package com.learnreactivespring.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 0.5, OPEN, 2);
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(0);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(0));
+    }
+
+    @Test
+    public void opensAtFailureRateAndRejectsUntilOpenDurationPassed() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, OPEN, 2);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(OPEN - 1));
+        assertTrue(breaker.tryAcquire(OPEN));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void halfOpenClosesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = openBreaker();
+
+        assertTrue(breaker.tryAcquire(OPEN));
+        assertTrue(breaker.tryAcquire(OPEN));
+        assertFalse(breaker.tryAcquire(OPEN));
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.failureRate());
+    }
+
+    @Test
+    public void halfOpenReopensOnFailure() {
+        CircuitBreaker breaker = openBreaker();
+        breaker.tryAcquire(OPEN);
+        breaker.onFailure(OPEN);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(OPEN + 1));
+    }
+
+    @Test
+    public void cancelledProbeGivesPermitBack() {
+        CircuitBreaker breaker = openBreaker();
+        breaker.tryAcquire(OPEN);
+        breaker.tryAcquire(OPEN);
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquire(OPEN));
+    }
+
+    @Test
+    public void oldOutcomesSlideOutOfTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, OPEN, 2);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+
+        assertEquals(0, breaker.failureRate());
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 2, 0.5, OPEN, 2);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,66 @@
+package com.learnreactivespring.resilience;
+
+import com.learnreactivespring.config.HedgingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HedgedReadsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HedgedReads hedgedReads = new HedgedReads(new HedgingProperties(), meterRegistry);
+
+    @Test
+    public void fastPrimaryNeverHedges() {
+        PublisherProbe<String> hedge = PublisherProbe.of(Mono.just("hedge"));
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(Mono.just("primary").delayElement(Duration.ofMillis(50)), hedge::mono))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext("primary")
+                .verifyComplete();
+        hedge.assertWasNotSubscribed();
+        assertEquals(0, meterRegistry.counter("item.hedge.requests").count());
+    }
+
+    @Test
+    public void hedgeFiresAfterTheDelayAndCancelsTheSlowPrimary() {
+        PublisherProbe<String> primary = PublisherProbe.of(Mono.<String>never());
+        PublisherProbe<String> hedge = PublisherProbe.of(Mono.just("hedge").delayElement(Duration.ofMillis(10)));
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(primary.mono(), hedge::mono))
+                .thenAwait(Duration.ofMillis(199))
+                .then(hedge::assertWasNotSubscribed)
+                .thenAwait(Duration.ofMillis(1))
+                .then(hedge::assertWasSubscribed)
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext("hedge")
+                .verifyComplete();
+        primary.assertWasCancelled();
+        assertEquals(1, meterRegistry.counter("item.hedge.wins").count());
+    }
+
+    @Test
+    public void primaryWinsOverAnEmptyHedgeAndCancelsIt() {
+        PublisherProbe<String> hedge = PublisherProbe.of(Mono.<String>empty());
+        PublisherProbe<String> slowHedge = PublisherProbe.of(Mono.<String>never());
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(Mono.just("primary").delayElement(Duration.ofMillis(300)), hedge::mono))
+                .thenAwait(Duration.ofMillis(300))
+                .expectNext("primary")
+                .verifyComplete();
+        hedge.assertWasSubscribed();
+
+        StepVerifier.withVirtualTime(() -> hedgedReads.read(Mono.just("primary").delayElement(Duration.ofMillis(300)), slowHedge::mono))
+                .thenAwait(Duration.ofMillis(300))
+                .expectNext("primary")
+                .verifyComplete();
+        slowHedge.assertWasCancelled();
+        assertEquals(0, meterRegistry.counter("item.hedge.wins").count());
+    }
+}
@@ -0,0 +1,53 @@
+package com.learnreactivespring.resilience;
+
+import com.learnreactivespring.config.ResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ItemStoreResilienceTest {
+
+    private final ItemStoreResilience resilience = new ItemStoreResilience(new ResilienceProperties(), new SimpleMeterRegistry());
+
+    @Test
+    public void fallbackMarksTheResponseDegraded() {
+        AtomicBoolean degraded = new AtomicBoolean();
+        Flux<String> items = resilience.flux(ItemOperation.FIND_ALL,
+                Flux.error(new DataAccessResourceFailureException("connection refused")), () -> Flux.just("cached"));
+
+        StepVerifier.create(items.contextWrite(Context.of(ItemStoreResilience.DEGRADED_CONTEXT_KEY, degraded)))
+                .expectNext("cached")
+                .verifyComplete();
+        assertTrue(degraded.get());
+    }
+
+    @Test
+    public void requestFailuresSkipTheFallback() {
+        AtomicBoolean degraded = new AtomicBoolean();
+        Flux<String> items = resilience.flux(ItemOperation.FIND_ALL,
+                Flux.error(new DuplicateKeyException("duplicate")), () -> Flux.just("cached"));
+
+        StepVerifier.create(items.contextWrite(Context.of(ItemStoreResilience.DEGRADED_CONTEXT_KEY, degraded)))
+                .verifyError(DuplicateKeyException.class);
+        assertFalse(degraded.get());
+    }
+
+    @Test
+    public void storeFailures() {
+        assertTrue(ItemStoreResilience.isStoreFailure(new DataAccessResourceFailureException("down")));
+        assertTrue(ItemStoreResilience.isStoreFailure(new TimeoutException()));
+        assertFalse(ItemStoreResilience.isStoreFailure(new DuplicateKeyException("duplicate")));
+        assertFalse(ItemStoreResilience.isStoreFailure(new DataIntegrityViolationException("invalid")));
+    }
+}
@@ -0,0 +1,54 @@
+package com.learnreactivespring.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(30);
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void noPercentileBelowMinimumSamples() {
+        LatencyHistogram histogram = new LatencyHistogram(WINDOW, 10, 0);
+        histogram.record(MILLI, 0);
+
+        assertEquals(-1, histogram.percentile(0.95));
+    }
+
+    @Test
+    public void percentileIsWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram(WINDOW, 10, 0);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MILLI, 0);
+        }
+
+        long p95 = histogram.percentile(0.95);
+        assertTrue(p95 >= 95 * MILLI && p95 <= 95 * MILLI * 1.25, "p95 was " + p95);
+    }
+
+    @Test
+    public void completedWindowIsUsedOnceItHasEnoughSamples() {
+        LatencyHistogram histogram = new LatencyHistogram(WINDOW, 10, 0);
+        for (int i = 0; i < 20; i++) {
+            histogram.record(100 * MILLI, 0);
+        }
+        // rolls the window, the slow reads become the previous window
+        histogram.record(MILLI, WINDOW);
+
+        assertTrue(histogram.percentile(0.5) >= 100 * MILLI);
+    }
+
+    @Test
+    public void bucketBoundsContainTheirValues() {
+        for (long nanos = 1024; nanos < TimeUnit.SECONDS.toNanos(10); nanos = nanos * 3 / 2) {
+            int index = LatencyHistogram.index(nanos);
+            assertTrue(LatencyHistogram.upperBound(index) > nanos);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) <= nanos);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.learnreactivespring.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@DirtiesContext
+@ActiveProfiles("test")
+public class BlockingCallGuardTest {
+
+    @Autowired
+    BlockingOffload blockingOffload;
+
+    @Test
+    public void blockingOnParallelSchedulerFails() {
+        Mono<String> blocking = Mono.fromCallable(this::slowLookup)
+                .subscribeOn(Schedulers.parallel());
+
+        StepVerifier.create(blocking)
+                .expectError(BlockingOperationError.class)
+                .verify();
+    }
+
+    @Test
+    public void blockingOnOffloadSchedulerIsAllowed() {
+        Mono<String> offloaded = Mono.just("id")
+                .publishOn(Schedulers.parallel())
+                .flatMap(id -> blockingOffload.call("slowLookup", this::slowLookup));
+
+        StepVerifier.create(offloaded)
+                .expectNext("value")
+                .verifyComplete();
+    }
+
+    private String slowLookup() throws InterruptedException {
+        Thread.sleep(10);
+        return "value";
+    }
+}
@@ -0,0 +1,62 @@
+package com.learnreactivespring.startup;
+
+import com.learnreactivespring.config.WarmupProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"item.warmup.enabled=true", "item.warmup.requests-per-route=50"})
+@ExtendWith(SpringExtension.class)
+@DirtiesContext
+@ActiveProfiles("test")
+public class WarmupRunnerTest {
+
+    @Autowired
+    StartupHealthIndicator startupHealthIndicator;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void readyOnlyAfterWarmup() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!startupHealthIndicator.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(startupHealthIndicator.isReady());
+        assertEquals(Status.UP, startupHealthIndicator.health().getStatus());
+        assertEquals(1, meterRegistry.timer("item.warmup.duration").count());
+    }
+
+    @Test
+    public void outOfServiceUntilWarmupCompletes() {
+        WarmupProperties properties = new WarmupProperties();
+        properties.setEnabled(true);
+        StartupHealthIndicator indicator = new StartupHealthIndicator(new SimpleMeterRegistry());
+        new WarmupRunner(properties, new WarmupTrafficWebFilter(properties), indicator, WebClient.builder(), new SimpleMeterRegistry());
+
+        indicator.applicationReady();
+        assertFalse(indicator.isReady());
+        assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+
+        indicator.complete(WarmupRunner.STEP);
+        assertTrue(indicator.isReady());
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+}
@@ -0,0 +1,52 @@
+package com.learnreactivespring.stream;
+
+import com.learnreactivespring.document.ItemCapped;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+public class ConflationTest {
+
+    @Test
+    public void keepsOnlyNewestPendingValuePerKey() {
+        TestPublisher<ItemCapped> source = TestPublisher.create();
+        Flux<ItemCapped> conflated = Conflation.latestByKey(source.flux(), ItemCapped::getDescription);
+
+        StepVerifier.create(conflated, 0)
+                .then(() -> source.next(
+                        new ItemCapped("1", "TV", 100.0),
+                        new ItemCapped("2", "Watch", 50.0),
+                        new ItemCapped("3", "TV", 101.0),
+                        new ItemCapped("4", "TV", 102.0)))
+                .thenRequest(1)
+                .expectNextMatches(item -> item.getId().equals("4"))
+                .thenRequest(1)
+                .expectNextMatches(item -> item.getId().equals("2"))
+                .then(source::complete)
+                .verifyComplete();
+    }
+
+    @Test
+    public void passesThroughWhenSubscriberKeepsUp() {
+        Flux<ItemCapped> source = Flux.just(
+                new ItemCapped("1", "TV", 100.0),
+                new ItemCapped("2", "TV", 101.0));
+
+        StepVerifier.create(Conflation.latestByKey(source, ItemCapped::getDescription))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void deliversPendingValuesBeforeError() {
+        TestPublisher<ItemCapped> source = TestPublisher.create();
+
+        StepVerifier.create(Conflation.latestByKey(source.flux(), ItemCapped::getDescription), 0)
+                .then(() -> source.next(new ItemCapped("1", "TV", 100.0)))
+                .then(() -> source.error(new IllegalStateException("cursor closed")))
+                .thenRequest(1)
+                .expectNextCount(1)
+                .verifyError(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,34 @@
+package com.learnreactivespring.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemCappedProducerTest {
+
+    @Test
+    public void lowRatesSpreadEventsOverTicks() {
+        assertEquals(20, events(new ItemCappedProducer.TickBudget(20, Duration.ofMillis(10)), 100));
+    }
+
+    @Test
+    public void fractionalRatesAreNotTruncated() {
+        assertEquals(3000, events(new ItemCappedProducer.TickBudget(1000, Duration.ofMillis(3)), 1000));
+        assertEquals(10500, events(new ItemCappedProducer.TickBudget(1500, Duration.ofMillis(7)), 1000));
+    }
+
+    @Test
+    public void subMillisecondTicks() {
+        assertEquals(1000, events(new ItemCappedProducer.TickBudget(1000, Duration.ofNanos(500_000)), 2000));
+    }
+
+    private static int events(ItemCappedProducer.TickBudget budget, int ticks) {
+        int events = 0;
+        for (int i = 0; i < ticks; i++) {
+            events += budget.next();
+        }
+        return events;
+    }
+}